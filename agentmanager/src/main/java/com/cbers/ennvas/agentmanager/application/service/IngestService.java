@@ -0,0 +1,41 @@
+package com.cbers.ennvas.agentmanager.application.service;
+
+import java.io.IOException;
+
+import com.cbers.ennvas.agentmanager.rest.controller.data.IngestResponse;
+
+/**
+ * Product file ingest service interface.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public interface IngestService
+{
+
+	/**
+	 * Ingests a product file (a JSON array of products) of the ingest
+	 * directory: saves its products by provider unique URL, in batches.
+	 * 
+	 * If a previous ingest of the same file was interrupted, it is resumed
+	 * after the last saved batch.
+	 * 
+	 * @param fileName File name, relative to the ingest directory.
+	 * 
+	 * @return Ingest result.
+	 * 
+	 * @throws IllegalArgumentException If the file is not in the ingest
+	 * directory.
+	 * @throws IllegalStateException If the file is already being ingested.
+	 * @throws java.nio.file.NoSuchFileException If the file does not exist.
+	 * @throws com.google.gson.JsonParseException If the file is not a JSON
+	 * array of products.
+	 * @throws IOException If the file cannot be read.
+	 */
+	IngestResponse ingest(String fileName) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,336 @@
+package com.cbers.ennvas.agentmanager.application.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.cbers.ennvas.agentmanager.domain.ProductJsonReader;
+import com.cbers.ennvas.agentmanager.domain.resource.IngestCheckpoint;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.cbers.ennvas.agentmanager.rest.controller.data.IngestResponse;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Product file ingest service interface implementation.
+ * 
+ * Files are read one product at a time, and saved in batches, so memory
+ * use does not depend on the file size. Each batch is saved in a new
+ * catalogue version, and then the progress is written to a checkpoint file
+ * next to the product file ("<file>.checkpoint"), which is deleted once the
+ * ingest is completed.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Service
+public class IngestServiceImpl implements IngestService
+{
+
+	private static final Logger log = LoggerFactory.getLogger(IngestServiceImpl.class);
+
+	private static final String CHECKPOINT_EXTENSION = ".checkpoint";
+
+	/**
+	 * Maximum length of the text attributes, but the description.
+	 */
+	private static final int MAX_TEXT_LENGTH = 255;
+
+	/**
+	 * Number of skipped products that are logged.
+	 */
+	private static final int MAX_LOGGED_SKIPPED = 10;
+
+	/**
+	 * Number of batches between progress logs.
+	 */
+	private static final int PROGRESS_LOG_BATCHES = 100;
+
+	@Autowired
+	private ProductService productService;
+
+	private final Gson gson = new Gson();
+
+	/**
+	 * Directory of the product files.
+	 */
+	@Value("${agm.ingest.directory:ingest}")
+	private String directory;
+
+	/**
+	 * Number of products saved at a time.
+	 */
+	@Value("${agm.ingest.batch-size:1000}")
+	private int batchSize;
+
+	/**
+	 * Files being ingested.
+	 */
+	private final Set<Path> ingesting = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Ingests a product file (a JSON array of products) of the ingest
+	 * directory: saves its products by provider unique URL, in batches.
+	 * 
+	 * If a previous ingest of the same file was interrupted, it is resumed
+	 * after the last saved batch.
+	 * 
+	 * @param fileName File name, relative to the ingest directory.
+	 * 
+	 * @return Ingest result.
+	 */
+	@Override
+	public IngestResponse ingest(String fileName) throws IOException
+	{
+		Path root = Files.createDirectories(Paths.get(directory)).toRealPath();
+		Path file = root.resolve(fileName).normalize();
+
+		if (!file.startsWith(root) || file.equals(root) || file.getFileName().toString().endsWith(CHECKPOINT_EXTENSION)) {
+			throw new IllegalArgumentException("Not a product file of the ingest directory: " + fileName + ".");
+		}
+
+		/*
+		 * Symbolic links must not lead out of the directory either.
+		 */
+
+		file = file.toRealPath();
+
+		if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+			throw new IllegalArgumentException("Not a product file of the ingest directory: " + fileName + ".");
+		}
+
+		if (!ingesting.add(file)) {
+			throw new IllegalStateException("Product file already being ingested: " + fileName + ".");
+		}
+
+		try {
+			IngestResponse response = this.ingest(file);
+
+			response.setFile(fileName);
+
+			return response;
+		} finally {
+			ingesting.remove(file);
+		}
+	}
+
+	/**
+	 * Ingests a product file.
+	 * 
+	 * @param file Product file.
+	 * 
+	 * @return Ingest result.
+	 */
+	private IngestResponse ingest(Path file) throws IOException
+	{
+		Path checkpointFile = file.resolveSibling(file.getFileName() + CHECKPOINT_EXTENSION);
+		IngestCheckpoint checkpoint = this.readCheckpoint(file, checkpointFile);
+
+		IngestResponse response = new IngestResponse();
+		response.setResumedFrom(checkpoint.getProducts());
+
+		if (checkpoint.getProducts() > 0) {
+			log.info("Resuming ingest of " + file + " after " + checkpoint.getProducts() + " products.");
+		} else {
+			log.info("Starting ingest of " + file + ".");
+		}
+
+		long start = System.nanoTime();
+		long batches = 0;
+
+		try (ProductJsonReader products = new ProductJsonReader(file)) {
+			products.skip(checkpoint.getProducts());
+
+			List<ProductEntity> batch = new ArrayList<ProductEntity>(batchSize);
+
+			while (products.hasNext()) {
+				ProductEntity product = products.next();
+				String error = validate(product);
+
+				if (error == null) {
+					batch.add(product);
+				} else {
+					if (checkpoint.getSkipped() < MAX_LOGGED_SKIPPED) {
+						log.warn("Skipping product " + products.getCount() + " of " + file + ": " + error + ".");
+					}
+
+					checkpoint.setSkipped(checkpoint.getSkipped() + 1);
+				}
+
+				if (batch.size() == batchSize || !products.hasNext()) {
+					this.saveBatch(batch, products.getCount(), checkpoint, checkpointFile);
+
+					if (++batches % PROGRESS_LOG_BATCHES == 0) {
+						log.info(String.format(
+							"Ingested %d products of %s (%.0f products/s).",
+							products.getCount(), file, (products.getCount() - response.getResumedFrom()) / ((System.nanoTime() - start) / 1e9)
+						));
+					}
+				}
+			}
+		}
+
+		Files.deleteIfExists(checkpointFile);
+
+		response.setSaved(checkpoint.getSaved());
+		response.setSkipped(checkpoint.getSkipped());
+		response.setVersion(productService.getCatalogueVersion());
+
+		log.info(String.format(
+			"Completed ingest of %s (%d products saved, %d skipped, %.1f s).",
+			file, response.getSaved(), response.getSkipped(), (System.nanoTime() - start) / 1e9
+		));
+
+		return response;
+	}
+
+	/**
+	 * Saves a batch of products, and then writes the checkpoint.
+	 * 
+	 * @param batch Products (emptied once saved).
+	 * @param products Number of products of the file read so far.
+	 * @param checkpoint Checkpoint.
+	 * @param checkpointFile Checkpoint file.
+	 */
+	private void saveBatch(List<ProductEntity> batch, long products, IngestCheckpoint checkpoint, Path checkpointFile) throws IOException
+	{
+		if (!batch.isEmpty()) {
+			checkpoint.setVersion(productService.upsertProducts(batch));
+			checkpoint.setSaved(checkpoint.getSaved() + batch.size());
+
+			batch.clear();
+		}
+
+		checkpoint.setProducts(products);
+
+		this.writeCheckpoint(checkpoint, checkpointFile);
+	}
+
+	/**
+	 * Reads the checkpoint of a product file.
+	 * 
+	 * @param file Product file.
+	 * @param checkpointFile Checkpoint file.
+	 * 
+	 * @return Checkpoint, or a new one if there is none or it is no longer
+	 * valid (the file changed, or the data base does not have the products, as
+	 * it was recreated or its catalogue version is older).
+	 */
+	private IngestCheckpoint readCheckpoint(Path file, Path checkpointFile) throws IOException
+	{
+		long fileSize = Files.size(file);
+		long fileModified = Files.getLastModifiedTime(file).toMillis();
+		long epoch = productService.getCatalogueEpoch();
+
+		try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+			IngestCheckpoint checkpoint = gson.fromJson(reader, IngestCheckpoint.class);
+
+			if (checkpoint != null
+				&& checkpoint.getFileSize() == fileSize
+				&& checkpoint.getFileModified() == fileModified
+				&& checkpoint.getEpoch() == epoch
+				&& checkpoint.getVersion() <= productService.getCatalogueVersion()) {
+				return checkpoint;
+			}
+		} catch (NoSuchFileException e) {
+			/* No checkpoint. */
+		} catch (JsonParseException e) {
+			log.warn("Ignoring invalid checkpoint " + checkpointFile + ".");
+		}
+
+		return new IngestCheckpoint(fileSize, fileModified, 0, 0, 0, epoch, 0);
+	}
+
+	/**
+	 * Writes a checkpoint. It is written to a temporary file first, so an
+	 * interruption does not leave it incomplete.
+	 * 
+	 * @param checkpoint Checkpoint.
+	 * @param checkpointFile Checkpoint file.
+	 */
+	private void writeCheckpoint(IngestCheckpoint checkpoint, Path checkpointFile) throws IOException
+	{
+		Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+
+		try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8)) {
+			gson.toJson(checkpoint, writer);
+		}
+
+		Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Validates a product.
+	 * 
+	 * @param product Product.
+	 * 
+	 * @return Validation error, or null if it is valid.
+	 */
+	private static String validate(ProductEntity product)
+	{
+		if (product == null) {
+			return "not a product";
+		}
+
+		if (isBlank(product.getProviderUniqueUrl())) {
+			return "no provider unique URL";
+		}
+
+		if (isBlank(product.getName())) {
+			return "no name";
+		}
+
+		if (isTooLong(product.getName())
+			|| isTooLong(product.getType())
+			|| isTooLong(product.getBrand())
+			|| isTooLong(product.getProviderName())
+			|| isTooLong(product.getProviderUniqueUrl())) {
+			return "text attribute longer than " + MAX_TEXT_LENGTH + " characters";
+		}
+
+		if (product.getPrice() < 0 || product.getShippingPrice() < 0) {
+			return "negative price";
+		}
+
+		if (product.getStock() < 0 || product.getShippingTime() < 0) {
+			return "negative stock or shipping time";
+		}
+
+		if (product.getRating() < 0.0 || product.getRating() > 5.0) {
+			return "rating not in range 0.0 to 5.0";
+		}
+
+		return null;
+	}
+
+	private static boolean isBlank(String str)
+	{
+		return str == null || str.trim().isEmpty();
+	}
+
+	private static boolean isTooLong(String str)
+	{
+		return str != null && str.length() > MAX_TEXT_LENGTH;
+	}
+}
\ No newline at end of file
@@ -1,10 +1,21 @@
 package com.cbers.ennvas.agentmanager.application.service;
 
-import com.cbers.ennvas.agentmanager.rest.controller.data.ProductResponse;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.cbers.ennvas.agentmanager.domain.resource.ProductFilter;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductDeltaResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductPageResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.UniqueProductResponse;
 
 /**
  * Product service interface.
  * 
+ * Every change to the products creates a new catalogue version, so that
+ * consumers can request only the changes since the version they have.
+ * 
  * @author Juan Francisco Carrión Molina
  * @author Raquel Pérez González de Ossuna
  * @author Olga Posada Iglesias
@@ -17,9 +28,100 @@ public interface ProductService
 {
 	
 	/**
-	 * Returns all the products.
+	 * Performs an action for each product, reading them from the data base as
+	 * they are consumed, so memory use does not depend on the number of
+	 * products.
+	 * 
+	 * @param action Action.
+	 */
+	void forEachProduct(Consumer<UniqueProductResponse> action);
+
+	/**
+	 * Performs an action for each product that meets a filter, in unique
+	 * identifier order. The filter is evaluated by the data base, and
+	 * products are read as they are consumed.
+	 * 
+	 * @param filter Filter.
+	 * @param action Action.
+	 */
+	void forEachProduct(ProductFilter filter, Consumer<UniqueProductResponse> action);
+
+	/**
+	 * Returns a page of products, in unique identifier order.
+	 * 
+	 * @param cursor Cursor of the page, from the previous page, or null for
+	 * the first page.
+	 * @param size Maximum number of products.
+	 * 
+	 * @return Page of products.
+	 * 
+	 * @throws IllegalArgumentException If the cursor is not valid.
+	 */
+	ProductPageResponse getProductPage(String cursor, int size);
+
+	/**
+	 * Returns the products added, updated or removed after a catalogue
+	 * version.
+	 * 
+	 * @param since Catalogue version (between 1 and the current one).
+	 * 
+	 * @return Products added, updated or removed after the version.
+	 */
+	ProductDeltaResponse getProductsSince(long since);
+
+	/**
+	 * Returns the current catalogue version.
+	 * 
+	 * @return Current catalogue version.
+	 */
+	long getCatalogueVersion();
+
+	/**
+	 * Returns the catalogue epoch: catalogue versions are only comparable
+	 * within the same epoch (that is, the same data base).
+	 * 
+	 * @return Catalogue epoch.
+	 */
+	long getCatalogueEpoch();
+
+	/**
+	 * Saves (adds or updates) products, in a new catalogue version.
+	 * 
+	 * @param products Products.
+	 * 
+	 * @return New catalogue version.
+	 */
+	long saveProducts(List<ProductEntity> products);
+
+	/**
+	 * Saves (adds or updates) products as they are read, in a new catalogue
+	 * version. They are sent to the data base in batches, and not kept in
+	 * memory.
+	 * 
+	 * @param products Products.
+	 * 
+	 * @return New catalogue version.
+	 */
+	long importProducts(Iterator<ProductEntity> products);
+
+	/**
+	 * Saves products by provider unique URL, in a new catalogue version: the
+	 * stored product with the same URL is updated, or the product is added
+	 * if there is none.
+	 * 
+	 * @param products Products.
+	 * 
+	 * @return New catalogue version.
+	 */
+	long upsertProducts(List<ProductEntity> products);
+
+	/**
+	 * Removes the products with a provider unique URL, in a new catalogue
+	 * version.
+	 * 
+	 * @param providerUniqueUrl Provider unique URL.
 	 * 
-	 * @return All the products.
+	 * @return Number of removed products.
 	 */
-	ProductResponse getAllProducts();
+	int removeProducts(String providerUniqueUrl);
 }
\ No newline at end of file
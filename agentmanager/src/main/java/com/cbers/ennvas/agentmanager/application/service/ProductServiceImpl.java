@@ -1,20 +1,51 @@
 package com.cbers.ennvas.agentmanager.application.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import com.cbers.ennvas.agentmanager.domain.FullTextPrefilter;
 import com.cbers.ennvas.agentmanager.domain.converter.ProductEntityToUniqueProductResponseConverter;
+import com.cbers.ennvas.agentmanager.domain.resource.ProductFilter;
+import com.cbers.ennvas.agentmanager.persistence.entity.CatalogueEntity;
 import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.cbers.ennvas.agentmanager.persistence.fulltext.FullTextIndexInitializer;
+import com.cbers.ennvas.agentmanager.persistence.repository.CatalogueRepository;
 import com.cbers.ennvas.agentmanager.persistence.repository.ProductRepository;
-import com.cbers.ennvas.agentmanager.rest.controller.data.ProductResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductDeltaResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductPageResponse;
 import com.cbers.ennvas.agentmanager.rest.controller.data.UniqueProductResponse;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Product service interface implementation.
  * 
+ * The catalogue version is the last product revision. Changes are
+ * serialized, and each one is committed before the next version is
+ * assigned, so a consumer that read a version never misses a change with a
+ * lower one.
+ * 
  * @author Juan Francisco Carrión Molina
  * @author Raquel Pérez González de Ossuna
  * @author Olga Posada Iglesias
@@ -29,27 +60,524 @@ public class ProductServiceImpl implements ProductService
 
 	@Autowired
 	private ProductRepository productRepository;
+
+	@Autowired
+	private CatalogueRepository catalogueRepository;
 	
 	@Autowired
 	private ProductEntityToUniqueProductResponseConverter productEntityToUniqueProductResponseConverter;
 
+	@Autowired
+	private FullTextPrefilter fullTextPrefilter;
+
+	@Autowired
+	private FullTextIndexInitializer fullTextIndexInitializer;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Number of products sent to the data base at a time by imports.
+	 */
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+	private int batchSize;
+
+	/**
+	 * Last assigned catalogue version. Read from the data base on the first
+	 * change.
+	 */
+	private long lastVersion = -1;
+
+	/**
+	 * Catalogue epoch. Read from (or set in) the data base on the first use.
+	 */
+	private volatile long epoch = -1;
+
+	/**
+	 * Unique identifier of the catalogue.
+	 */
+	private static final int CATALOGUE_ID = 1;
+
+	/**
+	 * Performs an action for each product, reading them from the data base as
+	 * they are consumed, so memory use does not depend on the number of
+	 * products.
+	 * 
+	 * @param action Action.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachProduct(Consumer<UniqueProductResponse> action)
+	{
+		try (Stream<ProductEntity> products = productRepository.streamByRemovedFalse()) {
+			this.forEachDetached(products, action);
+		}
+	}
+
+	/**
+	 * Performs an action for each product that meets a filter, in unique
+	 * identifier order. The filter is evaluated by the data base, and
+	 * products are read as they are consumed.
+	 * 
+	 * If the filter has a query phrase and the full-text prefilter is enabled
+	 * and available, only the products that can match it are read (see
+	 * FullTextPrefilter). This requires the recommender minimum utility to be
+	 * greater than 0.
+	 * 
+	 * @param filter Filter.
+	 * @param action Action.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void forEachProduct(ProductFilter filter, Consumer<UniqueProductResponse> action)
+	{
+		String textQuery = null;
+
+		if (filter.getPhrase() != null && fullTextPrefilter.isEnabled() && fullTextIndexInitializer.isAvailable()) {
+			this.loadWords();
+
+			textQuery = fullTextPrefilter.toBooleanQuery(filter.getPhrase());
+
+			if (textQuery != null && textQuery.isEmpty()) {
+				return;
+			}
+		}
+
+		try (Stream<ProductEntity> products = productRepository.streamByFilter(filter, textQuery)) {
+			this.forEachDetached(products, action);
+		}
+	}
+
 	/**
-	 * Returns all the products.
+	 * Returns a page of products, in unique identifier order.
+	 * 
+	 * The cursor is the encoded unique identifier of the last product of the
+	 * previous page, so the page is read with a keyset query instead of an
+	 * offset one.
+	 * 
+	 * @param cursor Cursor of the page, from the previous page, or null for
+	 * the first page.
+	 * @param size Maximum number of products.
 	 * 
-	 * @return All the products.
+	 * @return Page of products.
+	 * 
+	 * @throws IllegalArgumentException If the cursor is not valid.
 	 */
 	@Override
-	public ProductResponse getAllProducts() {
-		ProductResponse response = new ProductResponse();
+	@Transactional(readOnly = true)
+	public ProductPageResponse getProductPage(String cursor, int size)
+	{
+		int after = decodeCursor(cursor);
+
+		ProductPageResponse response = new ProductPageResponse();
+
+		response.setEpoch(this.getCatalogueEpoch());
+		response.setVersion(productRepository.findCatalogueVersion());
+
+		/*
+		 * Read one more product than the page size to know if there is a next
+		 * page.
+		 */
+
+		List<ProductEntity> products = productRepository.findByProductIdGreaterThanAndRemovedFalseOrderByProductId(
+			after,
+			PageRequest.of(0, size + 1)
+		);
+
+		if (products.size() > size) {
+			products = products.subList(0, size);
 
-		List<ProductEntity> allProducts = productRepository.findAll();
-		List<UniqueProductResponse> uniqueProductsList = allProducts
+			response.setNext(encodeCursor(products.get(size - 1).getProductId()));
+		}
+
+		response.setProducts(this.convert(products));
+
+		return response;
+	}
+
+	/**
+	 * Returns the products added, updated or removed after a catalogue
+	 * version.
+	 * 
+	 * @param since Catalogue version (between 1 and the current one).
+	 * 
+	 * @return Products added, updated or removed after the version.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public ProductDeltaResponse getProductsSince(long since)
+	{
+		ProductDeltaResponse response = new ProductDeltaResponse();
+
+		response.setEpoch(this.getCatalogueEpoch());
+		response.setVersion(productRepository.findCatalogueVersion());
+		response.setSince(since);
+
+		List<ProductEntity> saved = new ArrayList<ProductEntity>();
+		Set<String> savedUrls = new HashSet<String>();
+		Set<String> removedUrls = new HashSet<String>();
+
+		for (ProductEntity product : productRepository.findByRevisionGreaterThan(since)) {
+			if (product.isRemoved()) {
+				removedUrls.add(product.getProviderUniqueUrl());
+			} else {
+				saved.add(product);
+				savedUrls.add(product.getProviderUniqueUrl());
+			}
+		}
+
+		/*
+		 * A removed product replaced by another one with the same provider
+		 * unique URL is an update.
+		 */
+
+		removedUrls.removeAll(savedUrls);
+		removedUrls.remove(null);
+
+		response.setFull(false);
+		response.setProducts(this.convert(saved));
+		response.setRemoved(new ArrayList<String>(removedUrls));
+
+		return response;
+	}
+
+	/**
+	 * Returns the current catalogue version.
+	 * 
+	 * @return Current catalogue version.
+	 */
+	@Override
+	public long getCatalogueVersion()
+	{
+		return productRepository.findCatalogueVersion();
+	}
+
+	/**
+	 * Returns the catalogue epoch. It is set when the data base has none
+	 * (that is, when it was created).
+	 * 
+	 * @return Catalogue epoch.
+	 */
+	@Override
+	public long getCatalogueEpoch()
+	{
+		if (this.epoch < 0) {
+			synchronized (this) {
+				if (this.epoch < 0) {
+					CatalogueEntity catalogue = catalogueRepository.findById(CATALOGUE_ID)
+						.orElseGet(() -> catalogueRepository.save(new CatalogueEntity(CATALOGUE_ID, System.currentTimeMillis())));
+
+					this.epoch = catalogue.getEpoch();
+				}
+			}
+		}
+
+		return this.epoch;
+	}
+
+	/**
+	 * Saves (adds or updates) products, in a new catalogue version.
+	 * 
+	 * @param products Products.
+	 * 
+	 * @return New catalogue version.
+	 */
+	@Override
+	public synchronized long saveProducts(List<ProductEntity> products)
+	{
+		long version = this.nextVersion();
+
+		for (ProductEntity product : products) {
+			product.setRevision(version);
+			product.setRemoved(false);
+		}
+
+		if (fullTextPrefilter.isEnabled()) {
+			products.forEach(fullTextPrefilter::addWords);
+		}
+
+		productRepository.saveAll(products);
+
+		return version;
+	}
+
+	/**
+	 * Saves (adds or updates) products as they are read, in a new catalogue
+	 * version. They are sent to the data base in batches, and not kept in
+	 * memory.
+	 * 
+	 * All of them are saved in a single transaction, so a consumer that read
+	 * the new version does not miss any.
+	 * 
+	 * @param products Products.
+	 * 
+	 * @return New catalogue version.
+	 */
+	@Override
+	public synchronized long importProducts(Iterator<ProductEntity> products)
+	{
+		long version = this.nextVersion();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			int count = 0;
+
+			while (products.hasNext()) {
+				ProductEntity product = products.next();
+
+				/*
+				 * Unique identifiers are assigned by the data base (e. g. if
+				 * the file was responded by the agent manager).
+				 */
+
+				product.setProductId(null);
+				product.setRevision(version);
+				product.setRemoved(false);
+
+				if (fullTextPrefilter.isEnabled()) {
+					fullTextPrefilter.addWords(product);
+				}
+
+				productRepository.save(product);
+
+				/*
+				 * Send each batch and release its products.
+				 */
+
+				if (++count % batchSize == 0) {
+					entityManager.flush();
+					entityManager.clear();
+				}
+			}
+		});
+
+		return version;
+	}
+
+	/**
+	 * Saves products by provider unique URL, in a new catalogue version: the
+	 * stored product with the same URL is updated, or the product is added
+	 * if there is none.
+	 * 
+	 * If several products have the same URL, the last one is saved. If
+	 * several stored products have it, the first one that is not removed
+	 * (or, if all of them are, the first one) is updated and the rest are
+	 * removed, so there is one product per URL, and a product keeps its
+	 * unique identifier.
+	 * 
+	 * @param products Products.
+	 * 
+	 * @return New catalogue version.
+	 */
+	@Override
+	public synchronized long upsertProducts(List<ProductEntity> products)
+	{
+		long version = this.nextVersion();
+
+		Map<String, ProductEntity> productsByUrl = new LinkedHashMap<String, ProductEntity>();
+
+		for (ProductEntity product : products) {
+			productsByUrl.put(product.getProviderUniqueUrl(), product);
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Map<String, ProductEntity> storedByUrl = new HashMap<String, ProductEntity>();
+
+			/*
+			 * Stored products, not removed ones first, in unique identifier
+			 * order. Removed products are only added again if there is no
+			 * other product with their URL.
+			 */
+
+			List<ProductEntity> stored = productRepository.findByProviderUniqueUrlIn(productsByUrl.keySet());
+
+			stored.sort(Comparator.comparing(ProductEntity::isRemoved).thenComparing(ProductEntity::getProductId));
+
+			for (ProductEntity storedProduct : stored) {
+				if (storedByUrl.putIfAbsent(storedProduct.getProviderUniqueUrl(), storedProduct) != null
+					&& !storedProduct.isRemoved()) {
+					storedProduct.setRevision(version);
+					storedProduct.setRemoved(true);
+				}
+			}
+
+			List<ProductEntity> added = new ArrayList<ProductEntity>();
+
+			for (ProductEntity product : productsByUrl.values()) {
+				ProductEntity storedProduct = storedByUrl.get(product.getProviderUniqueUrl());
+
+				if (fullTextPrefilter.isEnabled()) {
+					fullTextPrefilter.addWords(product);
+				}
+
+				if (storedProduct != null) {
+					BeanUtils.copyProperties(product, storedProduct, "productId");
+				} else {
+					product.setProductId(null);
+					storedProduct = product;
+
+					added.add(product);
+				}
+
+				storedProduct.setRevision(version);
+				storedProduct.setRemoved(false);
+			}
+
+			productRepository.saveAll(added);
+
+			/*
+			 * Send the batch and release its products, as the persistence
+			 * context can outlive the transaction (e. g. in a request).
+			 */
+
+			entityManager.flush();
+			entityManager.clear();
+		});
+
+		return version;
+	}
+
+	/**
+	 * Removes the products with a provider unique URL, in a new catalogue
+	 * version.
+	 * 
+	 * @param providerUniqueUrl Provider unique URL.
+	 * 
+	 * @return Number of removed products.
+	 */
+	@Override
+	public synchronized int removeProducts(String providerUniqueUrl)
+	{
+		List<ProductEntity> products = productRepository
+			.findByProviderUniqueUrl(providerUniqueUrl)
 			.stream()
-			.map(e -> productEntityToUniqueProductResponseConverter.convert(e))
+			.filter(e -> !e.isRemoved())
 			.collect(Collectors.toList());
 
-		response.setProducts(uniqueProductsList);
-		
-		return response;
+		if (products.isEmpty()) {
+			return 0;
+		}
+
+		long version = this.nextVersion();
+
+		for (ProductEntity product : products) {
+			product.setRevision(version);
+			product.setRemoved(true);
+		}
+
+		productRepository.saveAll(products);
+
+		return products.size();
+	}
+
+	/**
+	 * Assigns the next catalogue version. Callers hold the lock.
+	 * 
+	 * @return Next catalogue version.
+	 */
+	private long nextVersion()
+	{
+		if (this.lastVersion < 0) {
+			this.lastVersion = productRepository.findCatalogueVersion();
+		}
+
+		return ++this.lastVersion;
+	}
+
+	/**
+	 * Adds the words of the stored products to the full-text prefilter
+	 * vocabulary, the first time it is used. Products saved since then add
+	 * their words when they are saved.
+	 */
+	private void loadWords()
+	{
+		if (fullTextPrefilter.isLoaded()) {
+			return;
+		}
+
+		synchronized (fullTextPrefilter) {
+			if (fullTextPrefilter.isLoaded()) {
+				return;
+			}
+
+			try (Stream<ProductEntity> products = productRepository.streamByRemovedFalse()) {
+				products.forEach(e -> {
+					fullTextPrefilter.addWords(e);
+
+					entityManager.detach(e);
+				});
+			}
+
+			fullTextPrefilter.setLoaded();
+		}
+	}
+
+	/**
+	 * Performs an action for each product of a stream, detaching each one
+	 * once consumed, so the persistence context does not keep them.
+	 * 
+	 * @param products Products.
+	 * @param action Action.
+	 */
+	private void forEachDetached(Stream<ProductEntity> products, Consumer<UniqueProductResponse> action)
+	{
+		products.forEach(e -> {
+			action.accept(productEntityToUniqueProductResponseConverter.convert(e));
+
+			entityManager.detach(e);
+		});
+	}
+
+	/**
+	 * Encodes a page cursor.
+	 * 
+	 * @param productId Unique identifier of the last product of the page.
+	 * 
+	 * @return Cursor.
+	 */
+	private static String encodeCursor(int productId)
+	{
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+			Integer.toString(productId).getBytes(StandardCharsets.US_ASCII)
+		);
+	}
+
+	/**
+	 * Decodes a page cursor.
+	 * 
+	 * @param cursor Cursor, or null or empty for the first page.
+	 * 
+	 * @return Unique identifier of the last product of the previous page.
+	 * 
+	 * @throws IllegalArgumentException If the cursor is not valid.
+	 */
+	private static int decodeCursor(String cursor)
+	{
+		if (cursor == null || cursor.isEmpty()) {
+			return 0;
+		}
+
+		try {
+			return Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+		}
+	}
+
+	/**
+	 * Converts ProductEntity objects to UniqueProductResponse objects.
+	 * 
+	 * @param products ProductEntity objects.
+	 * 
+	 * @return UniqueProductResponse objects.
+	 */
+	private List<UniqueProductResponse> convert(List<ProductEntity> products)
+	{
+		return products
+			.stream()
+			.map(e -> productEntityToUniqueProductResponseConverter.convert(e))
+			.collect(Collectors.toList());
 	}
 }
\ No newline at end of file
@@ -1,15 +1,13 @@
 package com.cbers.ennvas.agentmanager.demo;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Paths;
 
 import javax.annotation.PostConstruct;
 
-import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
-import com.cbers.ennvas.agentmanager.persistence.repository.ProductRepository;
-import com.google.gson.Gson;
+import com.cbers.ennvas.agentmanager.application.service.ProductService;
+import com.cbers.ennvas.agentmanager.domain.ProductJsonReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,11 +36,11 @@ public class DemoGeneratorBean
     private ApplicationArguments applicationArguments;
     
     @Autowired
-    private ProductRepository productRepository;
+    private ProductService productService;
 
     /**
-     * Initializes the demo data: retrieves it from the JSON file and saves it
-     * to the repository.
+     * Initializes the demo data: reads it from the JSON file and saves it to
+     * the repository, one batch of products at a time.
      */
     @PostConstruct
     public void init()
@@ -57,44 +55,25 @@ public class DemoGeneratorBean
 		String demoDataJsonPath = args[0];
 
         /*
-         * Retrieve demo data.
+         * Read and insert demo data.
          */
 
-        ProductEntity[] productArray = generate(demoDataJsonPath);
-        
-        /*
-         * Insert demo data.
-         */
+        long start = System.nanoTime();
+        long version;
+        long count;
 
-        for (int i = 0; i < productArray.length; i++) {
-            productRepository.save(productArray[i]);
+        try (ProductJsonReader products = new ProductJsonReader(Paths.get(demoDataJsonPath))) {
+            version = productService.importProducts(products);
+            count = products.getCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
-        log.info("Completed demo data generation.");
-    }
+        double seconds = (System.nanoTime() - start) / 1e9;
 
-    /**
-     * Retrieves the demo data from the JSON file.
-     * 
-     * @param demoDataJsonPath Path to the JSON file.
-     * 
-     * @return Demo data.
-     */
-    public static ProductEntity[] generate(String demoDataJsonPath)
-    {
-        String jsonData = "";
-		
-		try {
-            jsonData =
-                new String(Files.readAllBytes(Paths.get(demoDataJsonPath)), StandardCharsets.UTF_8);
-		} catch (IOException e) {
-            e.printStackTrace();
-        }
-        
-        log.info("JSON demo data retrieved successfully.");
-		
-		Gson gson = new Gson();
-		
-        return gson.fromJson(jsonData, ProductEntity[].class);
+        log.info(String.format(
+            "Completed demo data generation (%d products in %.1f s, %.0f products/s, catalogue version %d).",
+            count, seconds, count / seconds, version
+        ));
     }
 }
\ No newline at end of file
@@ -0,0 +1,396 @@
+package com.cbers.ennvas.agentmanager.domain;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the full-text search that prefilters the products by the query
+ * phrase, so only the products that can have a utility greater than 0 for
+ * it are sent to the recommender.
+ * 
+ * The recommender matches the query words as substrings of the product
+ * text attributes, while a full-text search matches whole words or their
+ * prefixes. So each query word is replaced with the product words that
+ * contain it (e. g. "phone" with "iphone" and "smartphone"), from the
+ * vocabulary of the stored products, and the search matches any of them as
+ * a prefix. The product words that contain a query word are looked up in an
+ * n-gram index of the vocabulary instead of scanning all of it.
+ * 
+ * There is no prefilter, and all the products are retrieved, for the query
+ * phrases the full-text search would lose products for:
+ * 
+ * - Phrases with empty words (e. g. starting with a space), which every
+ * product matches.
+ * - Phrases with words contained in product words that are not indexed
+ * (shorter than the minimum full-text word length, longer than the maximum
+ * one, or full-text stopwords).
+ * - Phrases with words contained in too many product words, as the search
+ * would not discard many products either.
+ * - Phrases with words contained in product words that the full-text parser
+ * may split differently (see addWords).
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Component
+public class FullTextPrefilter
+{
+
+	/**
+	 * Same query word rules as the recommender: special symbols are ignored
+	 * and words are separated by spaces.
+	 */
+	private static final Pattern SPECIAL_SYMBOLS = Pattern.compile("[^\\sA-Za-z0-9]");
+	private static final Pattern SPACES = Pattern.compile("[\\s]+");
+
+	/**
+	 * Accents, removed from the product words as the recommender does.
+	 */
+	private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+	/**
+	 * MySQL InnoDB default full-text stopwords.
+	 */
+	private static final Set<String> STOPWORDS = new HashSet<String>(Arrays.asList(
+		"a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en",
+		"for", "from", "how", "i", "in", "is", "it", "la", "of", "on", "or",
+		"that", "the", "this", "to", "was", "what", "when", "where", "who",
+		"will", "with", "und", "www"
+	));
+
+	/**
+	 * MySQL InnoDB maximum full-text word length (innodb_ft_max_token_size).
+	 */
+	private static final int MAX_WORD_LENGTH = 84;
+
+	/**
+	 * Maximum length of the indexed n-grams. Query words up to this length
+	 * are looked up directly, and longer ones by their n-grams of this
+	 * length.
+	 */
+	private static final int GRAM_LENGTH = 3;
+
+	/**
+	 * Prefilter switch.
+	 */
+	@Value("${agm.fulltext-prefilter.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Minimum full-text word length of the data base.
+	 */
+	@Value("${agm.fulltext-prefilter.min-word-length:3}")
+	private int minWordLength;
+
+	/**
+	 * Maximum number of product words a search can have.
+	 */
+	@Value("${agm.fulltext-prefilter.max-words:500}")
+	private int maxWords;
+
+	/**
+	 * Product words (lowercase), with their accents removed. Words of removed
+	 * products are kept, as they only make the search match more products.
+	 */
+	private final Map<String, String> words = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Product words by the n-grams (1 to GRAM_LENGTH characters long) of
+	 * their accent-free form.
+	 */
+	private final Map<String, Set<String>> grams = new ConcurrentHashMap<String, Set<String>>();
+
+	/**
+	 * Product words with characters that the full-text parser may not take
+	 * as word characters.
+	 */
+	private final Set<String> unsafeWords = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * True if the words of the products stored before have been added.
+	 */
+	private volatile boolean loaded;
+
+	/**
+	 * Checks if the prefilter is enabled.
+	 * 
+	 * @return True if it is enabled.
+	 */
+	public boolean isEnabled()
+	{
+		return this.enabled;
+	}
+
+	/**
+	 * Checks if the words of the products stored before have been added.
+	 * 
+	 * @return True if they have been added.
+	 */
+	public boolean isLoaded()
+	{
+		return this.loaded;
+	}
+
+	/**
+	 * Marks the words of the products stored before as added.
+	 */
+	public void setLoaded()
+	{
+		this.loaded = true;
+	}
+
+	/**
+	 * Adds the words of the text attributes of a product to the vocabulary.
+	 * 
+	 * @param product Product.
+	 */
+	public void addWords(ProductEntity product)
+	{
+		this.addWords(product.getName());
+		this.addWords(product.getType());
+		this.addWords(product.getBrand());
+		this.addWords(product.getDescription());
+	}
+
+	/**
+	 * Builds the boolean mode full-text search for a query phrase.
+	 * 
+	 * @param phrase Query phrase.
+	 * 
+	 * @return Boolean mode full-text search, empty if no product contains the
+	 * query words, or null if it could lose products and all the products
+	 * must be retrieved.
+	 */
+	public String toBooleanQuery(String phrase)
+	{
+		if (phrase == null) {
+			return null;
+		}
+
+		phrase = SPECIAL_SYMBOLS.matcher(phrase).replaceAll("");
+
+		Set<String> terms = new LinkedHashSet<String>();
+
+		for (String queryWord : SPACES.split(phrase)) {
+			queryWord = queryWord.toLowerCase(Locale.ROOT);
+
+			if (queryWord.isEmpty()) {
+				return null;
+			}
+
+			Set<String> candidates = this.candidates(queryWord);
+
+			/*
+			 * Every word of a too large n-gram posting contains the query
+			 * word, so the search would have too many words or lose products.
+			 */
+
+			if (queryWord.length() <= GRAM_LENGTH && candidates.size() > maxWords) {
+				return null;
+			}
+
+			for (String word : candidates) {
+				if (!words.get(word).contains(queryWord)) {
+					continue;
+				}
+
+				if (!this.isIndexed(word) || unsafeWords.contains(word)) {
+					return null;
+				}
+
+				terms.add(word);
+
+				if (terms.size() > maxWords) {
+					return null;
+				}
+			}
+		}
+
+		StringBuilder query = new StringBuilder();
+
+		for (String term : terms) {
+			if (query.length() > 0) {
+				query.append(' ');
+			}
+
+			query.append(term).append('*');
+		}
+
+		return query.toString();
+	}
+
+	/**
+	 * Adds the words of a text to the vocabulary.
+	 * 
+	 * @param text Text.
+	 */
+	private void addWords(String text)
+	{
+		if (text == null) {
+			return;
+		}
+
+		text = text.toLowerCase(Locale.ROOT);
+
+		int length = text.length();
+		int start = -1;
+		boolean unsafe = false;
+
+		/*
+		 * Words are separated as the InnoDB full-text parser does where its
+		 * rules are known: ASCII letters, digits and underscores, and Latin
+		 * letters, are word characters, and the other ASCII characters and
+		 * spaces are separators (e. g. "foo_bar" is one word and "baz-qux" two).
+		 * The rest (apostrophes, as in "o'neil", and other Unicode
+		 * characters) depend on the parser and the character set, so they are
+		 * kept in the word and the word is marked as unsafe: the search would
+		 * not find it if the parser splits it. Scanned by hand instead of split
+		 * with a regular expression, as imports add the words of every
+		 * product.
+		 */
+
+		for (int i = 0; i <= length; i++) {
+			char c = i < length ? text.charAt(i) : ' ';
+
+			if (!isSeparator(c)) {
+				if (start < 0) {
+					start = i;
+				}
+
+				unsafe |= !isWordChar(c);
+			} else if (start >= 0) {
+				String word = text.substring(start, i);
+
+				if (!words.containsKey(word)) {
+					this.addWord(word, unsafe);
+				}
+
+				start = -1;
+				unsafe = false;
+			}
+		}
+	}
+
+	/**
+	 * Adds a word to the vocabulary and to the n-gram index.
+	 * 
+	 * @param word Product word (lowercase).
+	 * @param unsafe True if the full-text parser may split it differently.
+	 */
+	private void addWord(String word, boolean unsafe)
+	{
+		String folded = ACCENTS.matcher(Normalizer.normalize(word, Normalizer.Form.NFD)).replaceAll("");
+
+		if (unsafe) {
+			unsafeWords.add(word);
+		}
+
+		/*
+		 * Added to the vocabulary before the n-gram index, so the words found
+		 * by their n-grams always have their accent-free form.
+		 */
+
+		words.put(word, folded);
+
+		for (int start = 0; start < folded.length(); start++) {
+			for (int end = start + 1; end <= folded.length() && end - start <= GRAM_LENGTH; end++) {
+				grams.computeIfAbsent(folded.substring(start, end), g -> ConcurrentHashMap.newKeySet()).add(word);
+			}
+		}
+	}
+
+	/**
+	 * Returns the product words that can contain a query word: all of them
+	 * contain it if it is not longer than GRAM_LENGTH, otherwise they contain
+	 * its least frequent n-gram and must be checked.
+	 * 
+	 * @param queryWord Query word (lowercase, not empty).
+	 * 
+	 * @return Candidate product words.
+	 */
+	private Set<String> candidates(String queryWord)
+	{
+		if (queryWord.length() <= GRAM_LENGTH) {
+			return grams.getOrDefault(queryWord, Collections.<String>emptySet());
+		}
+
+		Set<String> candidates = null;
+
+		for (int start = 0; start + GRAM_LENGTH <= queryWord.length(); start++) {
+			Set<String> posting = grams.get(queryWord.substring(start, start + GRAM_LENGTH));
+
+			if (posting == null) {
+				return Collections.<String>emptySet();
+			}
+
+			if (candidates == null || posting.size() < candidates.size()) {
+				candidates = posting;
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Checks if a character is always part of full-text words.
+	 * 
+	 * @param c Character.
+	 * 
+	 * @return True if it is an ASCII letter or digit, an underscore or a
+	 * Latin letter (U+00C0 to U+017F).
+	 */
+	private static boolean isWordChar(char c)
+	{
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+			|| (c >= '\u00C0' && c <= '\u017F' && Character.isLetter(c));
+	}
+
+	/**
+	 * Checks if a character always separates full-text words.
+	 * 
+	 * @param c Character.
+	 * 
+	 * @return True if it is an ASCII character other than a letter, a digit,
+	 * an underscore or an apostrophe, or a space.
+	 */
+	private static boolean isSeparator(char c)
+	{
+		if (c < 0x80) {
+			return !isWordChar(c) && c != '\'';
+		}
+
+		return Character.isWhitespace(c) || Character.isSpaceChar(c);
+	}
+
+	/**
+	 * Checks if a product word is in the full-text index.
+	 * 
+	 * @param word Product word.
+	 * 
+	 * @return True if it is indexed.
+	 */
+	private boolean isIndexed(String word)
+	{
+		return word.length() >= minWordLength
+			&& word.length() <= MAX_WORD_LENGTH
+			&& !STOPWORDS.contains(word);
+	}
+}
\ No newline at end of file
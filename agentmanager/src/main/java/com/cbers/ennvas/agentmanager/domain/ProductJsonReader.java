@@ -0,0 +1,148 @@
+package com.cbers.ennvas.agentmanager.domain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Reads the products of a JSON file (an array of products) one at a time,
+ * so the file is not kept in memory.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class ProductJsonReader implements Iterator<ProductEntity>, Closeable
+{
+
+	private final Gson gson = new Gson();
+
+	private final JsonReader reader;
+
+	/**
+	 * Number of products read or skipped.
+	 */
+	private long count;
+
+	/**
+	 * Opens a JSON file.
+	 * 
+	 * @param jsonPath Path to the JSON file.
+	 * 
+	 * @throws IOException If the file cannot be opened.
+	 * @throws JsonSyntaxException If the file is not an array.
+	 */
+	public ProductJsonReader(Path jsonPath) throws IOException
+	{
+		this.reader = new JsonReader(Files.newBufferedReader(jsonPath, StandardCharsets.UTF_8));
+
+		try {
+			this.reader.beginArray();
+		} catch (MalformedJsonException | IllegalStateException e) {
+			this.reader.close();
+
+			throw new JsonSyntaxException(e);
+		} catch (IOException | RuntimeException e) {
+			this.reader.close();
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks if there are more products.
+	 * 
+	 * @return True if there are more products.
+	 * 
+	 * @throws JsonSyntaxException If the file is not valid JSON.
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		try {
+			return reader.hasNext();
+		} catch (MalformedJsonException e) {
+			throw new JsonSyntaxException(e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the next product.
+	 * 
+	 * @return Next product.
+	 * 
+	 * @throws JsonSyntaxException If it is not a valid product.
+	 */
+	@Override
+	public ProductEntity next()
+	{
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		this.count++;
+
+		try {
+			return gson.fromJson(reader, ProductEntity.class);
+		} catch (NumberFormatException e) {
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Skips products, without converting them.
+	 * 
+	 * @param products Number of products to skip.
+	 * 
+	 * @throws IOException If the file cannot be read.
+	 * @throws JsonSyntaxException If the file is not valid JSON.
+	 */
+	public void skip(long products) throws IOException
+	{
+		try {
+			for (long i = 0; i < products && reader.hasNext(); i++) {
+				reader.skipValue();
+
+				this.count++;
+			}
+		} catch (MalformedJsonException e) {
+			throw new JsonSyntaxException(e);
+		}
+	}
+
+	/**
+	 * Returns the number of products read or skipped.
+	 * 
+	 * @return Number of products read or skipped.
+	 */
+	public long getCount()
+	{
+		return this.count;
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
\ No newline at end of file
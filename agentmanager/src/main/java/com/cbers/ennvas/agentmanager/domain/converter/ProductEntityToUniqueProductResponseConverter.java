@@ -34,6 +34,7 @@ public class ProductEntityToUniqueProductResponseConverter
 	{
 		UniqueProductResponse response = new UniqueProductResponse();
 
+		response.setProductId(source.getProductId());
 		response.setBrand(source.getBrand());
 		response.setDescription(source.getDescription());
 		response.setName(source.getName());
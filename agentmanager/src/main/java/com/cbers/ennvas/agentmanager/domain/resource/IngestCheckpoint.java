@@ -0,0 +1,63 @@
+package com.cbers.ennvas.agentmanager.domain.resource;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the progress of the ingest of a product file, so an
+ * interrupted ingest can be resumed.
+ * 
+ * It is only valid for the same file (same size and last modified time)
+ * and while the data base is the same one (same catalogue epoch) and still
+ * has its catalogue version.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestCheckpoint
+{
+
+	/**
+	 * File size (in bytes).
+	 */
+	private long fileSize;
+
+	/**
+	 * File last modified time (in milliseconds since the epoch).
+	 */
+	private long fileModified;
+
+	/**
+	 * Number of products of the file already ingested (saved or skipped).
+	 */
+	private long products;
+
+	/**
+	 * Number of products of the file saved.
+	 */
+	private long saved;
+
+	/**
+	 * Number of products of the file skipped, as they were not valid.
+	 */
+	private long skipped;
+
+	/**
+	 * Catalogue epoch of the data base the products were saved to.
+	 */
+	private long epoch;
+
+	/**
+	 * Catalogue version of the last saved products.
+	 */
+	private long version;
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.cbers.ennvas.agentmanager.domain.resource;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the hard filters of a query: products that do not meet them
+ * are not eligible.
+ * 
+ * Every filter with its default value (0 or false) is not specified, the
+ * same way the recommender evaluates them.
+ * 
+ * The query phrase, if specified, is used to prefilter the products that
+ * can match it (see FullTextPrefilter).
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductFilter
+{
+
+	/**
+	 * Available (stock not 0).
+	 */
+	private boolean available;
+
+	/**
+	 * Free shipping (shipping price 0).
+	 */
+	private boolean freeShipping;
+
+	/**
+	 * Minimum price (in euros).
+	 */
+	private double priceMin;
+
+	/**
+	 * Maximum price (in euros).
+	 */
+	private double priceMax;
+
+	/**
+	 * Maximum shipping time (in days).
+	 */
+	private int maxShippingTime;
+
+	/**
+	 * Minimum rating (in range 0.0 to 5.0).
+	 */
+	private double minRating;
+
+	/**
+	 * Query phrase.
+	 */
+	private String phrase;
+}
\ No newline at end of file
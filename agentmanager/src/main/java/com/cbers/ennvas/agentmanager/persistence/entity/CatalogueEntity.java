@@ -0,0 +1,44 @@
+package com.cbers.ennvas.agentmanager.persistence.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the persistent catalogue data: its epoch.
+ * 
+ * Catalogue versions are the product revisions, so they start again when the
+ * data base is recreated. The epoch is set when the data base is created, so
+ * versions of different data bases are not mistaken for each other.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Entity
+@Table(name = "catalogue")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogueEntity
+{
+
+	/**
+	 * Unique identifier. There is a single catalogue.
+	 */
+	@Id
+	private Integer catalogueId;
+
+	/**
+	 * Epoch: time (in milliseconds) the data base was created.
+	 */
+	private long epoch;
+}
\ No newline at end of file
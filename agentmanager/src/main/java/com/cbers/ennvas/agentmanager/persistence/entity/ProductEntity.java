@@ -2,8 +2,11 @@ package com.cbers.ennvas.agentmanager.persistence.entity;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
@@ -22,7 +25,16 @@ import lombok.NoArgsConstructor;
  */
 
 @Entity
-@Table(name = "products")
+@Table(
+	name = "products",
+	indexes = {
+		@Index(name = "products_revision_idx", columnList = "revision"),
+		@Index(name = "products_price_idx", columnList = "removed, price"),
+		@Index(name = "products_shipping_idx", columnList = "removed, shippingPrice, shippingTime"),
+		@Index(name = "products_rating_idx", columnList = "removed, rating"),
+		@Index(name = "products_url_idx", columnList = "providerUniqueUrl")
+	}
+)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -31,9 +43,13 @@ public class ProductEntity
 
 	/**
 	 * Unique identifier.
+	 * 
+	 * Taken from a sequence in blocks, so inserts do not need a round trip
+	 * each and can be sent to the data base in batches.
 	 */
 	@Id
-	@GeneratedValue
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+	@SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 500)
 	private Integer productId;
 
 	/**
@@ -91,4 +107,15 @@ public class ProductEntity
 	 * Provider unique URL (product URL).
 	 */
 	private String providerUniqueUrl;
+
+	/**
+	 * Catalogue version in which it was last added, updated or removed.
+	 */
+	private long revision;
+
+	/**
+	 * Removed flag. Removed products are kept, so that deltas can report
+	 * them.
+	 */
+	private boolean removed;
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.cbers.ennvas.agentmanager.persistence.fulltext;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the "fulltext_match" query function, a MySQL full-text search
+ * of the product text attributes in boolean mode:
+ * 
+ * fulltext_match(name, type, brand, description, booleanQuery)
+ * 
+ * It is greater than 0 for the products that match.
+ * 
+ * Registered through the "hibernate.metadata_builder_contributor" property,
+ * see application.properties.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class FullTextFunctionContributor implements MetadataBuilderContributor
+{
+
+	/**
+	 * Query function name.
+	 */
+	public static final String FUNCTION_NAME = "fulltext_match";
+
+	/**
+	 * Registers the query function.
+	 * 
+	 * @param metadataBuilder Hibernate metadata builder.
+	 */
+	@Override
+	public void contribute(MetadataBuilder metadataBuilder)
+	{
+		metadataBuilder.applySqlFunction(
+			FUNCTION_NAME,
+			new SQLFunctionTemplate(
+				StandardBasicTypes.DOUBLE,
+				"match (?1, ?2, ?3, ?4) against (?5 in boolean mode)"
+			)
+		);
+	}
+}
\ No newline at end of file
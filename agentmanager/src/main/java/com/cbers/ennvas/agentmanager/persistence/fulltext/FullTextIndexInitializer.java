@@ -0,0 +1,96 @@
+package com.cbers.ennvas.agentmanager.persistence.fulltext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the FULLTEXT index of the product text attributes, as JPA index
+ * annotations cannot declare it.
+ * 
+ * If it cannot be created (e. g. the data base is not MySQL), the full-text
+ * prefilter is not available and products are not prefiltered by phrase.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Component
+public class FullTextIndexInitializer
+{
+
+	private static final Logger log = LoggerFactory.getLogger(FullTextIndexInitializer.class);
+
+	private static final String INDEX_NAME = "products_text_idx";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Prefilter switch (see FullTextPrefilter).
+	 */
+	@Value("${agm.fulltext-prefilter.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * True if the index exists.
+	 */
+	private volatile boolean available;
+
+	/**
+	 * Creates the index, if it does not exist yet and the prefilter is
+	 * enabled.
+	 * 
+	 * Done once the application beans are initialized, so the demo data is
+	 * inserted before: building the index once is faster than updating it on
+	 * every insert. The HTTP server is not started yet.
+	 */
+	@EventListener(ContextRefreshedEvent.class)
+	public void init()
+	{
+		if (!enabled || this.available) {
+			return;
+		}
+
+		try {
+			Integer existing = jdbcTemplate.queryForObject(
+				"select count(*) from information_schema.statistics" +
+				" where table_schema = database() and table_name = 'products' and index_name = ?",
+				Integer.class,
+				INDEX_NAME
+			);
+
+			if (existing == null || existing == 0) {
+				log.info("Creating product text FULLTEXT index.");
+
+				jdbcTemplate.execute(
+					"create fulltext index " + INDEX_NAME + " on products (name, type, brand, description)"
+				);
+			}
+
+			this.available = true;
+		} catch (DataAccessException e) {
+			log.warn("Product text FULLTEXT index not available, products will not be prefiltered by phrase: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks if the index exists.
+	 * 
+	 * @return True if the index exists.
+	 */
+	public boolean isAvailable()
+	{
+		return this.available;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.cbers.ennvas.agentmanager.persistence.repository;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import com.cbers.ennvas.agentmanager.persistence.entity.CatalogueEntity;
+
+/**
+ * Catalogue repository.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Repository
+public interface CatalogueRepository
+	extends CrudRepository<CatalogueEntity, Integer>
+{
+}
\ No newline at end of file
@@ -1,9 +1,16 @@
 package com.cbers.ennvas.agentmanager.persistence.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
 
@@ -20,11 +27,70 @@ import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
 
 @Repository
 public interface ProductRepository
-	extends CrudRepository<ProductEntity, Integer>
+	extends CrudRepository<ProductEntity, Integer>, ProductRepositoryCustom
 {
 
 	/**
 	 * Returns a list with all the stored products.
 	 */
 	List<ProductEntity> findAll();
+
+	/**
+	 * Returns a list with all the stored products that are not removed.
+	 */
+	List<ProductEntity> findByRemovedFalse();
+
+	/**
+	 * Returns a stream with all the stored products that are not removed.
+	 * 
+	 * Rows are fetched from the data base in batches (see "useCursorFetch" in
+	 * the data source URL) as the stream is consumed, instead of all at once.
+	 * It must be consumed and closed inside a transaction.
+	 */
+	@QueryHints(
+		@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500")
+	)
+	Stream<ProductEntity> streamByRemovedFalse();
+
+	/**
+	 * Returns a list with the stored products that are not removed and have a
+	 * unique identifier greater than a given one, in unique identifier order.
+	 * 
+	 * Used for keyset pagination: the primary key index seeks the first
+	 * product of the page, so deep pages are as fast as the first one, unlike
+	 * with an offset.
+	 * 
+	 * @param productId Unique identifier (exclusive).
+	 * @param pageable Page size (the page number must be 0).
+	 */
+	List<ProductEntity> findByProductIdGreaterThanAndRemovedFalseOrderByProductId(Integer productId, Pageable pageable);
+
+	/**
+	 * Returns a list with the products added, updated or removed after a
+	 * catalogue version.
+	 * 
+	 * @param revision Catalogue version.
+	 */
+	List<ProductEntity> findByRevisionGreaterThan(long revision);
+
+	/**
+	 * Returns a list with the products with a provider unique URL.
+	 * 
+	 * @param providerUniqueUrl Provider unique URL.
+	 */
+	List<ProductEntity> findByProviderUniqueUrl(String providerUniqueUrl);
+
+	/**
+	 * Returns a list with the products with any of some provider unique URLs.
+	 * 
+	 * @param providerUniqueUrls Provider unique URLs.
+	 */
+	List<ProductEntity> findByProviderUniqueUrlIn(Collection<String> providerUniqueUrls);
+
+	/**
+	 * Returns the catalogue version: the last product revision, or 0 if there
+	 * are no products.
+	 */
+	@Query("select coalesce(max(p.revision), 0) from ProductEntity p")
+	long findCatalogueVersion();
 }
\ No newline at end of file
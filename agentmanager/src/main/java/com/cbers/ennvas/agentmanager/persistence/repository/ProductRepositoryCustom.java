@@ -0,0 +1,34 @@
+package com.cbers.ennvas.agentmanager.persistence.repository;
+
+import java.util.stream.Stream;
+
+import com.cbers.ennvas.agentmanager.domain.resource.ProductFilter;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+
+/**
+ * Product repository queries that are built at runtime.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public interface ProductRepositoryCustom
+{
+
+	/**
+	 * Returns a stream with the stored products that are not removed and meet
+	 * a filter, in unique identifier order.
+	 * 
+	 * Rows are fetched from the data base in batches as the stream is
+	 * consumed. It must be consumed and closed inside a transaction.
+	 * 
+	 * @param filter Filter.
+	 * @param textQuery Boolean mode full-text search the products must match
+	 * (see FullTextPrefilter), or null.
+	 */
+	Stream<ProductEntity> streamByFilter(ProductFilter filter, String textQuery);
+}
\ No newline at end of file
@@ -0,0 +1,129 @@
+package com.cbers.ennvas.agentmanager.persistence.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import com.cbers.ennvas.agentmanager.domain.resource.ProductFilter;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.cbers.ennvas.agentmanager.persistence.fulltext.FullTextFunctionContributor;
+
+import org.hibernate.jpa.QueryHints;
+
+/**
+ * Product repository queries that are built at runtime, implementation.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom
+{
+
+	/**
+	 * Rows fetched from the data base at a time.
+	 */
+	private static final int FETCH_SIZE = 500;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Returns a stream with the stored products that are not removed and meet
+	 * a filter, in unique identifier order.
+	 * 
+	 * Only the specified filters are added to the query, so the data base can
+	 * use the indexes of the products table for them.
+	 * 
+	 * The full-text search uses the products table FULLTEXT index (see
+	 * FullTextIndexInitializer).
+	 * 
+	 * @param filter Filter.
+	 * @param textQuery Boolean mode full-text search the products must match
+	 * (see FullTextPrefilter), or null.
+	 */
+	@Override
+	public Stream<ProductEntity> streamByFilter(ProductFilter filter, String textQuery)
+	{
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ProductEntity> query = builder.createQuery(ProductEntity.class);
+		Root<ProductEntity> product = query.from(ProductEntity.class);
+
+		/*
+		 * Same conditions as the recommender utility function, which excludes
+		 * the products that do not meet them.
+		 */
+
+		List<Predicate> predicates = new ArrayList<Predicate>();
+		ParameterExpression<String> textQueryParameter = builder.parameter(String.class);
+
+		predicates.add(builder.isFalse(product.<Boolean>get("removed")));
+
+		if (filter.getPriceMin() > 0.0) {
+			predicates.add(builder.greaterThanOrEqualTo(product.<Double>get("price"), filter.getPriceMin()));
+		}
+
+		if (filter.getPriceMax() > 0.0) {
+			predicates.add(builder.lessThanOrEqualTo(product.<Double>get("price"), filter.getPriceMax()));
+		}
+
+		if (filter.isFreeShipping()) {
+			predicates.add(builder.equal(product.<Double>get("shippingPrice"), 0.0));
+		}
+
+		if (filter.getMaxShippingTime() > 0) {
+			predicates.add(builder.lessThanOrEqualTo(product.<Integer>get("shippingTime"), filter.getMaxShippingTime()));
+		}
+
+		if (filter.isAvailable()) {
+			predicates.add(builder.notEqual(product.<Integer>get("stock"), 0));
+		}
+
+		if (filter.getMinRating() > 0) {
+			predicates.add(builder.greaterThanOrEqualTo(product.<Double>get("rating"), filter.getMinRating()));
+		}
+
+		if (textQuery != null) {
+			predicates.add(builder.greaterThan(
+				builder.function(
+					FullTextFunctionContributor.FUNCTION_NAME,
+					Double.class,
+					product.get("name"),
+					product.get("type"),
+					product.get("brand"),
+					product.get("description"),
+					textQueryParameter
+				),
+				0.0
+			));
+		}
+
+		query
+			.select(product)
+			.where(predicates.toArray(new Predicate[predicates.size()]))
+			.orderBy(builder.asc(product.get("productId")));
+
+		TypedQuery<ProductEntity> typedQuery = entityManager
+			.createQuery(query)
+			.setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE);
+
+		if (textQuery != null) {
+			typedQuery.setParameter(textQueryParameter, textQuery);
+		}
+
+		return typedQuery.getResultStream();
+	}
+}
\ No newline at end of file
@@ -1,19 +1,53 @@
 package com.cbers.ennvas.agentmanager.rest.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.cbers.ennvas.agentmanager.application.service.IngestServiceImpl;
 import com.cbers.ennvas.agentmanager.application.service.ProductServiceImpl;
-import com.cbers.ennvas.agentmanager.rest.controller.data.ProductResponse;
+import com.cbers.ennvas.agentmanager.domain.resource.ProductFilter;
+import com.cbers.ennvas.agentmanager.rest.controller.data.IngestResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductDeltaResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductPageResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.UniqueProductResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonParseException;
 
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Agent manager REST controller.
  * 
+ * Product data responses have the catalogue epoch and version as (weak)
+ * ETag. Requests whose If-None-Match header matches the current one are
+ * responded 304 Not Modified, without reading the products. Otherwise, all the products are
+ * streamed: written to the response as they are read from the data base.
+ * 
+ * Product data is responded as JSON, or as Smile (binary JSON,
+ * "application/x-jackson-smile") if the Accept header prefers it, which is
+ * smaller and faster to read and write.
+ * 
  * @author Juan Francisco Carrión Molina
  * @author Raquel Pérez González de Ossuna
  * @author Olga Posada Iglesias
@@ -29,21 +63,386 @@ public class AgmRestController
 
     private static final Logger log = LoggerFactory.getLogger(AgmRestController.class);
 
+	/**
+	 * Product page sizes.
+	 */
+	private static final int DEFAULT_PAGE_SIZE = 1000;
+	private static final int MAX_PAGE_SIZE = 10000;
+
+	/**
+	 * Smile media type.
+	 */
+	private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+	private static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
 	@Autowired
 	private ProductServiceImpl productServiceImpl;
 
+	@Autowired
+	private IngestServiceImpl ingestServiceImpl;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Smile object mapper, as the one of the Smile message converter.
+	 */
+	private final ObjectMapper smileObjectMapper = Jackson2ObjectMapperBuilder.smile().build();
+
 	/**
 	 * Returns all the available products.
 	 * 
-	 * @return All the available products.
+	 * The response is written as the products are read from the data base
+	 * (see streamProducts).
+	 * 
+	 * @param ifNoneMatch If-None-Match header.
+	 * @param accept Accept header.
+	 * @param response HTTP response.
 	 */
-	@GetMapping(value="/retrieve", produces = "application/json")
-	public ResponseEntity<ProductResponse> retrieve()
+	@GetMapping(value="/retrieve", produces = { "application/json", APPLICATION_SMILE_VALUE })
+	public void retrieve(
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+		HttpServletResponse response
+	) throws IOException
 	{
 		log.info("Received product data request.");
 
+		long epoch = productServiceImpl.getCatalogueEpoch();
+		long version = productServiceImpl.getCatalogueVersion();
+
+		if (notModified(ifNoneMatch, epoch, version, response)) {
+			return;
+		}
+
 		log.info("Sengind product data.");
 
-		return ResponseEntity.ok(productServiceImpl.getAllProducts());
+		try (JsonGenerator generator = this.createGenerator(accept, response)) {
+			generator.writeStartObject();
+			generator.writeNumberField("epoch", epoch);
+			generator.writeNumberField("version", version);
+			this.streamProducts(generator, null);
+			generator.writeEndObject();
+		}
+	}
+
+	/**
+	 * Returns the available products that meet the hard filters of a query
+	 * (see ProductFilter), in unique identifier order.
+	 * 
+	 * The filters are evaluated by the data base, so only eligible products
+	 * are read and sent.
+	 * 
+	 * @param filter Filter, from the request parameters.
+	 * @param ifNoneMatch If-None-Match header.
+	 * @param accept Accept header.
+	 * @param response HTTP response.
+	 */
+	@GetMapping(value="/filter", produces = { "application/json", APPLICATION_SMILE_VALUE })
+	public void filter(
+		ProductFilter filter,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+		HttpServletResponse response
+	) throws IOException
+	{
+		log.info("Received filtered product data request: " + filter + ".");
+
+		long epoch = productServiceImpl.getCatalogueEpoch();
+		long version = productServiceImpl.getCatalogueVersion();
+
+		if (notModified(ifNoneMatch, epoch, version, response)) {
+			return;
+		}
+
+		log.info("Sending filtered product data.");
+
+		try (JsonGenerator generator = this.createGenerator(accept, response)) {
+			generator.writeStartObject();
+			generator.writeNumberField("epoch", epoch);
+			generator.writeNumberField("version", version);
+			this.streamProducts(generator, filter);
+			generator.writeEndObject();
+		}
+	}
+
+	/**
+	 * Returns the products added, updated or removed after a catalogue
+	 * version, or all the available products if the version is 0 or unknown,
+	 * or of another epoch (from before the data base was recreated).
+	 * 
+	 * @param since Catalogue version.
+	 * @param sinceEpoch Epoch of the catalogue version (0 if it is unknown).
+	 * @param ifNoneMatch If-None-Match header.
+	 * @param accept Accept header.
+	 * @param response HTTP response.
+	 */
+	@GetMapping(value="/delta", produces = { "application/json", APPLICATION_SMILE_VALUE })
+	public void delta(
+		@RequestParam(value = "since", defaultValue = "0") long since,
+		@RequestParam(value = "epoch", defaultValue = "0") long sinceEpoch,
+		@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+		@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+		HttpServletResponse response
+	) throws IOException
+	{
+		log.info("Received product delta request since version " + since + ".");
+
+		long epoch = productServiceImpl.getCatalogueEpoch();
+		long version = productServiceImpl.getCatalogueVersion();
+
+		if (notModified(ifNoneMatch, epoch, version, response)) {
+			return;
+		}
+
+		try (JsonGenerator generator = this.createGenerator(accept, response)) {
+			if (sinceEpoch != epoch || since <= 0 || since > version) {
+				log.info("Sending all product data.");
+
+				generator.writeStartObject();
+				generator.writeNumberField("epoch", epoch);
+				generator.writeNumberField("version", version);
+				generator.writeNumberField("since", since);
+				generator.writeBooleanField("full", true);
+				this.streamProducts(generator, null);
+				generator.writeArrayFieldStart("removed");
+				generator.writeEndArray();
+				generator.writeEndObject();
+			} else {
+				ProductDeltaResponse delta = productServiceImpl.getProductsSince(since);
+
+				log.info("Sending " + delta.getProducts().size() + " products and " + delta.getRemoved().size() + " removed products.");
+
+				generator.writeObject(delta);
+			}
+		}
+	}
+
+	/**
+	 * Returns a page of the available products, in unique identifier order.
+	 * 
+	 * Pages are chained with cursors: the response of each page has the
+	 * cursor of the next one, or none if it is the last one. Deep pages are
+	 * as fast as the first one.
+	 * 
+	 * @param cursor Cursor of the page, or none for the first page.
+	 * @param size Maximum number of products (between 1 and MAX_PAGE_SIZE).
+	 * 
+	 * @return Page of products.
+	 */
+	@GetMapping(value="/products", produces = { "application/json", APPLICATION_SMILE_VALUE })
+	public ResponseEntity<ProductPageResponse> products(
+		@RequestParam(value = "cursor", required = false) String cursor,
+		@RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+	)
+	{
+		log.info("Received product page request.");
+
+		if (size < 1 || size > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Page size must be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+
+		ProductPageResponse page;
+
+		try {
+			page = productServiceImpl.getProductPage(cursor, size);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+
+		log.info("Sending " + page.getProducts().size() + " products.");
+
+		return ResponseEntity.ok().eTag(etag(page.getEpoch(), page.getVersion())).body(page);
+	}
+
+	/**
+	 * Ingests a product file (a JSON array of products) of the ingest
+	 * directory (see IngestService). Products are saved by provider unique
+	 * URL, and an interrupted ingest of the same file is resumed.
+	 * 
+	 * @param file File name, relative to the ingest directory.
+	 * 
+	 * @return Ingest result.
+	 */
+	@PostMapping(value="/ingest", produces = "application/json")
+	public IngestResponse ingest(@RequestParam("file") String file) throws IOException
+	{
+		log.info("Received ingest request: " + file + ".");
+
+		try {
+			return ingestServiceImpl.ingest(file);
+		} catch (IllegalArgumentException | NoSuchFileException e) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product file not found: " + file + ".");
+		} catch (IllegalStateException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+		} catch (JsonParseException e) {
+			throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Not a valid product file: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Sets the ETag of a catalogue version, and responds 304 Not Modified if
+	 * the If-None-Match header matches it.
+	 * 
+	 * @param ifNoneMatch If-None-Match header (may be null).
+	 * @param epoch Catalogue epoch.
+	 * @param version Catalogue version.
+	 * @param response HTTP response.
+	 * 
+	 * @return True if responded 304 Not Modified.
+	 */
+	private static boolean notModified(String ifNoneMatch, long epoch, long version, HttpServletResponse response)
+	{
+		String etag = etag(epoch, version);
+
+		response.setHeader(HttpHeaders.ETAG, etag);
+
+		if (matches(ifNoneMatch, etag)) {
+			log.info("Product data not modified.");
+
+			response.setStatus(HttpStatus.NOT_MODIFIED.value());
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Creates a JSON or Smile generator, as preferred by the Accept header,
+	 * that writes to the response body.
+	 * 
+	 * @param accept Accept header (may be null).
+	 * @param response HTTP response.
+	 * 
+	 * @return JSON or Smile generator.
+	 */
+	private JsonGenerator createGenerator(String accept, HttpServletResponse response) throws IOException
+	{
+		if (prefersSmile(accept)) {
+			response.setContentType(APPLICATION_SMILE_VALUE);
+
+			return smileObjectMapper.getFactory().createGenerator(response.getOutputStream());
+		}
+
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+		return objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+	}
+
+	/**
+	 * Checks if an Accept header prefers Smile to JSON. Wildcards are JSON.
+	 * 
+	 * @param accept Accept header (may be null).
+	 * 
+	 * @return True if it prefers Smile.
+	 */
+	private static boolean prefersSmile(String accept)
+	{
+		if (accept == null) {
+			return false;
+		}
+
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+
+		for (MediaType mediaType : mediaTypes) {
+			if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+				return false;
+			}
+
+			if (mediaType.includes(APPLICATION_SMILE)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Writes the available products (all, or those that meet a filter) as the
+	 * "products" field, one at a time as they are read from the data base, so
+	 * memory use does not depend on the number of products.
+	 * 
+	 * Products changed while they are written may have a later revision than
+	 * the responded version. Consumers get them again in the next delta,
+	 * which is harmless.
+	 * 
+	 * @param generator JSON generator.
+	 * @param filter Filter, or null for all the available products.
+	 */
+	private void streamProducts(JsonGenerator generator, ProductFilter filter) throws IOException
+	{
+		generator.writeArrayFieldStart("products");
+
+		Consumer<UniqueProductResponse> writer = product -> {
+			try {
+				generator.writeObject(product);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+
+		try {
+			if (filter == null) {
+				productServiceImpl.forEachProduct(writer);
+			} else {
+				productServiceImpl.forEachProduct(filter, writer);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		generator.writeEndArray();
+	}
+
+	/**
+	 * Returns the ETag of a catalogue version: its epoch and number, so a
+	 * version of a recreated data base does not match.
+	 * 
+	 * Weak, as the same catalogue version is responded as JSON or Smile, and
+	 * compressed or not. Tomcat does not compress responses with a strong
+	 * ETag.
+	 * 
+	 * @param epoch Catalogue epoch.
+	 * @param version Catalogue version.
+	 * 
+	 * @return ETag.
+	 */
+	private static String etag(long epoch, long version)
+	{
+		return "W/\"" + epoch + "." + version + "\"";
+	}
+
+	/**
+	 * Checks if an If-None-Match header matches an ETag.
+	 * 
+	 * @param ifNoneMatch If-None-Match header (may be null).
+	 * @param etag ETag.
+	 * 
+	 * @return True if it matches.
+	 */
+	private static boolean matches(String ifNoneMatch, String etag)
+	{
+		if (ifNoneMatch == null) {
+			return false;
+		}
+
+		String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+
+		for (String candidate : ifNoneMatch.split(",")) {
+			candidate = candidate.trim();
+
+			if (candidate.startsWith("W/")) {
+				candidate = candidate.substring(2);
+			}
+
+			if (candidate.equals("*") || candidate.equals(opaqueTag)) {
+				return true;
+			}
+		}
+
+		return false;
 	}
 }
\ No newline at end of file
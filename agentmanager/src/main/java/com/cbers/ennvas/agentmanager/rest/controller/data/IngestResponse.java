@@ -0,0 +1,45 @@
+package com.cbers.ennvas.agentmanager.rest.controller.data;
+
+import lombok.Data;
+
+/**
+ * Ingest response: the result of the ingest of a product file.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+public class IngestResponse
+{
+
+	/**
+	 * Product file name.
+	 */
+	private String file;
+
+	/**
+	 * Number of products of the file ingested before, by an interrupted
+	 * ingest.
+	 */
+	private long resumedFrom;
+
+	/**
+	 * Number of products of the file saved.
+	 */
+	private long saved;
+
+	/**
+	 * Number of products of the file skipped, as they were not valid.
+	 */
+	private long skipped;
+
+	/**
+	 * Catalogue version after the ingest.
+	 */
+	private long version;
+}
\ No newline at end of file
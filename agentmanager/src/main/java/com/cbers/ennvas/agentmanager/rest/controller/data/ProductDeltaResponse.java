@@ -0,0 +1,55 @@
+package com.cbers.ennvas.agentmanager.rest.controller.data;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Product delta response: the products added, updated or removed after a
+ * catalogue version.
+ * 
+ * Products are identified by their provider unique URL.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+public class ProductDeltaResponse
+{
+
+	/**
+	 * Catalogue epoch.
+	 */
+	private long epoch;
+
+	/**
+	 * Current catalogue version.
+	 */
+	private long version;
+
+	/**
+	 * Catalogue version the delta was computed against.
+	 */
+	private long since;
+
+	/**
+	 * True if the products are all the products, instead of a delta (the
+	 * requested version was 0 or unknown, or of another epoch).
+	 */
+	private boolean full;
+	
+	/**
+	 * A list with the added or updated products.
+	 */
+	private List<UniqueProductResponse> products;
+
+	/**
+	 * A list with the provider unique URLs of the removed products.
+	 */
+	private List<String> removed;
+}
\ No newline at end of file
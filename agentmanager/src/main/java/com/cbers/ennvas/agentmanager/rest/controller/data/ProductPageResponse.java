@@ -0,0 +1,42 @@
+package com.cbers.ennvas.agentmanager.rest.controller.data;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Product page response: a page of the products, in unique identifier
+ * order.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+public class ProductPageResponse
+{
+
+	/**
+	 * Catalogue epoch.
+	 */
+	private long epoch;
+
+	/**
+	 * Catalogue version when the page was read.
+	 */
+	private long version;
+	
+	/**
+	 * A list with the products of the page.
+	 */
+	private List<UniqueProductResponse> products;
+
+	/**
+	 * Cursor of the next page. Null if this is the last page.
+	 */
+	private String next;
+}
\ No newline at end of file
@@ -17,6 +17,11 @@ import lombok.Data;
 public class UniqueProductResponse
 {
 
+	/**
+	 * Unique identifier. Stable: kept when the product is updated.
+	 */
+	private Integer productId;
+
 	/**
 	 * Name.
 	 */
@@ -0,0 +1,243 @@
+package com.cbers.ennvas.agentmanager.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.cbers.ennvas.agentmanager.domain.resource.IngestCheckpoint;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.cbers.ennvas.agentmanager.rest.controller.data.IngestResponse;
+import com.google.gson.Gson;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks the product file ingest service, with a mocked product service:
+ * checkpoint resume, stale checkpoints, and files out of the ingest
+ * directory.
+ * 
+ * The catalogue is at version 7 of epoch 42, and products are saved in
+ * batches of 2.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@ExtendWith(MockitoExtension.class)
+public class IngestServiceImplTest
+{
+
+	@TempDir
+	Path temporaryDirectory;
+
+	@Mock
+	private ProductService productService;
+
+	@InjectMocks
+	private IngestServiceImpl ingestServiceImpl;
+
+	private Path directory;
+
+	/**
+	 * Provider unique URLs of the saved products, in order.
+	 */
+	private List<String> saved;
+
+	@BeforeEach
+	public void setUp() throws IOException
+	{
+		directory = Files.createDirectory(temporaryDirectory.resolve("ingest"));
+		saved = new ArrayList<String>();
+
+		ReflectionTestUtils.setField(ingestServiceImpl, "directory", directory.toString());
+		ReflectionTestUtils.setField(ingestServiceImpl, "batchSize", 2);
+
+		lenient().when(productService.getCatalogueEpoch()).thenReturn(42L);
+		lenient().when(productService.getCatalogueVersion()).thenReturn(7L);
+		lenient().when(productService.upsertProducts(any())).thenAnswer(invocation -> {
+			List<ProductEntity> batch = invocation.getArgument(0);
+			batch.forEach(product -> saved.add(product.getProviderUniqueUrl()));
+			return 7L;
+		});
+	}
+
+	@Test
+	public void ingestSavesValidProducts() throws IOException
+	{
+		this.writeProducts("products.json", 5);
+
+		IngestResponse response = ingestServiceImpl.ingest("products.json");
+
+		assertEquals("products.json", response.getFile());
+		assertEquals(0, response.getResumedFrom());
+		assertEquals(5, response.getSaved());
+		assertEquals(0, response.getSkipped());
+		assertEquals(7, response.getVersion());
+		assertEquals(IngestServiceImplTest.urls(0, 5), saved);
+		assertFalse(Files.exists(directory.resolve("products.json.checkpoint")));
+	}
+
+	@Test
+	public void ingestResumesAfterCheckpoint() throws IOException
+	{
+		Path file = this.writeProducts("products.json", 5);
+
+		this.writeCheckpoint(file, 3, 42, 5);
+
+		IngestResponse response = ingestServiceImpl.ingest("products.json");
+
+		assertEquals(3, response.getResumedFrom());
+		assertEquals(5, response.getSaved());
+		assertEquals(IngestServiceImplTest.urls(3, 5), saved);
+		assertFalse(Files.exists(directory.resolve("products.json.checkpoint")));
+	}
+
+	@Test
+	public void staleCheckpointsAreIgnored() throws IOException
+	{
+		Path file = this.writeProducts("products.json", 5);
+
+		/*
+		 * Another epoch (the data base was recreated), a version after the
+		 * current one (the data base was restored) and another file size (the
+		 * file changed).
+		 */
+
+		for (long[] checkpoint : new long[][] { { 41, 5, 0 }, { 42, 8, 0 }, { 42, 5, 1 } }) {
+			saved.clear();
+
+			this.writeCheckpoint(file, 3, checkpoint[0], checkpoint[1]);
+
+			if (checkpoint[2] != 0) {
+				IngestCheckpoint changed = new Gson().fromJson(
+					new String(Files.readAllBytes(directory.resolve("products.json.checkpoint")), StandardCharsets.UTF_8),
+					IngestCheckpoint.class
+				);
+				changed.setFileSize(changed.getFileSize() + 1);
+				Files.write(directory.resolve("products.json.checkpoint"), new Gson().toJson(changed).getBytes(StandardCharsets.UTF_8));
+			}
+
+			IngestResponse response = ingestServiceImpl.ingest("products.json");
+
+			assertEquals(0, response.getResumedFrom(), Arrays.toString(checkpoint));
+			assertEquals(5, response.getSaved(), Arrays.toString(checkpoint));
+			assertEquals(IngestServiceImplTest.urls(0, 5), saved, Arrays.toString(checkpoint));
+		}
+	}
+
+	@Test
+	public void filesOutOfTheDirectoryAreRejected() throws IOException
+	{
+		Path outside = Files.write(temporaryDirectory.resolve("outside.json"), "[]".getBytes(StandardCharsets.UTF_8));
+		this.writeProducts("products.json", 1);
+
+		Files.createDirectory(directory.resolve("subdirectory"));
+		Files.write(directory.resolve("products.json.checkpoint"), "{}".getBytes(StandardCharsets.UTF_8));
+		Files.createSymbolicLink(directory.resolve("link.json"), outside);
+		Files.createSymbolicLink(directory.resolve("subdirectory/link.json"), Paths.get("../../outside.json"));
+
+		for (String fileName : new String[] {
+			"../outside.json",
+			"subdirectory/../../outside.json",
+			outside.toString(),
+			"",
+			".",
+			"subdirectory",
+			"products.json.checkpoint",
+			"link.json",
+			"subdirectory/link.json"
+		}) {
+			assertThrows(IllegalArgumentException.class, () -> ingestServiceImpl.ingest(fileName), fileName);
+		}
+
+		assertThrows(NoSuchFileException.class, () -> ingestServiceImpl.ingest("missing.json"));
+
+		verify(productService, never()).upsertProducts(any());
+	}
+
+	/**
+	 * Writes a product file of the ingest directory.
+	 * 
+	 * @param fileName File name.
+	 * @param count Number of products.
+	 * 
+	 * @return Product file.
+	 */
+	private Path writeProducts(String fileName, int count) throws IOException
+	{
+		List<ProductEntity> products = new ArrayList<ProductEntity>();
+
+		for (String url : IngestServiceImplTest.urls(0, count)) {
+			ProductEntity product = new ProductEntity();
+			product.setName("Product");
+			product.setProviderUniqueUrl(url);
+			products.add(product);
+		}
+
+		return Files.write(directory.resolve(fileName), new Gson().toJson(products).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Writes the checkpoint of a product file.
+	 * 
+	 * @param file Product file.
+	 * @param products Number of products ingested.
+	 * @param epoch Catalogue epoch.
+	 * @param version Catalogue version.
+	 */
+	private void writeCheckpoint(Path file, long products, long epoch, long version) throws IOException
+	{
+		IngestCheckpoint checkpoint = new IngestCheckpoint(
+			Files.size(file), Files.getLastModifiedTime(file).toMillis(), products, products, 0, epoch, version
+		);
+
+		Files.write(
+			file.resolveSibling(file.getFileName() + ".checkpoint"),
+			new Gson().toJson(checkpoint).getBytes(StandardCharsets.UTF_8)
+		);
+	}
+
+	/**
+	 * Returns the provider unique URLs of a range of test products.
+	 * 
+	 * @param from First product (inclusive).
+	 * @param to Last product (exclusive).
+	 * 
+	 * @return Provider unique URLs.
+	 */
+	private static List<String> urls(int from, int to)
+	{
+		List<String> urls = new ArrayList<String>();
+
+		for (int i = from; i < to; i++) {
+			urls.add("https://example.com/" + i);
+		}
+
+		return urls;
+	}
+}
\ No newline at end of file
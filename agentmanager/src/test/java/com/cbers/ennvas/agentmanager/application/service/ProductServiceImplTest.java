@@ -0,0 +1,174 @@
+package com.cbers.ennvas.agentmanager.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+import com.cbers.ennvas.agentmanager.domain.converter.ProductEntityToUniqueProductResponseConverter;
+import com.cbers.ennvas.agentmanager.persistence.entity.CatalogueEntity;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.cbers.ennvas.agentmanager.persistence.repository.CatalogueRepository;
+import com.cbers.ennvas.agentmanager.persistence.repository.ProductRepository;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductDeltaResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductPageResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.UniqueProductResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Checks the product deltas and pages of the product service, with a mocked
+ * repository.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@ExtendWith(MockitoExtension.class)
+public class ProductServiceImplTest
+{
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@Mock
+	private CatalogueRepository catalogueRepository;
+
+	@Spy
+	private ProductEntityToUniqueProductResponseConverter productEntityToUniqueProductResponseConverter;
+
+	@InjectMocks
+	private ProductServiceImpl productServiceImpl;
+
+	@BeforeEach
+	public void setUp()
+	{
+		lenient().when(catalogueRepository.findById(1)).thenReturn(Optional.of(new CatalogueEntity(1, 42L)));
+		lenient().when(productRepository.findCatalogueVersion()).thenReturn(7L);
+	}
+
+	@Test
+	public void deltaHasRemovedProductsAsTombstones()
+	{
+		/*
+		 * A saved product, a removed one, a removed one replaced by another
+		 * one with the same URL (an update), and a removed one without URL.
+		 */
+
+		when(productRepository.findByRevisionGreaterThan(3L)).thenReturn(Arrays.asList(
+			ProductServiceImplTest.product(1, "https://example.com/1", false),
+			ProductServiceImplTest.product(2, "https://example.com/2", true),
+			ProductServiceImplTest.product(3, "https://example.com/3", true),
+			ProductServiceImplTest.product(4, "https://example.com/3", false),
+			ProductServiceImplTest.product(5, null, true)
+		));
+
+		ProductDeltaResponse delta = productServiceImpl.getProductsSince(3);
+
+		assertEquals(42, delta.getEpoch());
+		assertEquals(7, delta.getVersion());
+		assertEquals(3, delta.getSince());
+		assertFalse(delta.isFull());
+
+		List<String> saved = new ArrayList<String>();
+
+		for (UniqueProductResponse product : delta.getProducts()) {
+			saved.add(product.getProviderUniqueUrl());
+		}
+
+		assertEquals(Arrays.asList("https://example.com/1", "https://example.com/3"), saved);
+		assertEquals(new HashSet<String>(Arrays.asList("https://example.com/2")), new HashSet<String>(delta.getRemoved()));
+	}
+
+	@Test
+	public void pageCursorsResumeAfterTheLastProduct()
+	{
+		when(productRepository.findByProductIdGreaterThanAndRemovedFalseOrderByProductId(0, PageRequest.of(0, 3))).thenReturn(Arrays.asList(
+			ProductServiceImplTest.product(1, "https://example.com/1", false),
+			ProductServiceImplTest.product(5, "https://example.com/5", false),
+			ProductServiceImplTest.product(9, "https://example.com/9", false)
+		));
+		when(productRepository.findByProductIdGreaterThanAndRemovedFalseOrderByProductId(5, PageRequest.of(0, 3))).thenReturn(Arrays.asList(
+			ProductServiceImplTest.product(9, "https://example.com/9", false)
+		));
+
+		ProductPageResponse first = productServiceImpl.getProductPage(null, 2);
+
+		assertEquals(42, first.getEpoch());
+		assertEquals(7, first.getVersion());
+		assertEquals(2, first.getProducts().size());
+		assertEquals(5, first.getProducts().get(1).getProductId());
+		assertNotNull(first.getNext());
+		assertFalse(first.getNext().contains("="));
+
+		ProductPageResponse second = productServiceImpl.getProductPage(first.getNext(), 2);
+
+		assertEquals(1, second.getProducts().size());
+		assertEquals(9, second.getProducts().get(0).getProductId());
+		assertNull(second.getNext());
+
+		/*
+		 * An empty cursor is the first page too.
+		 */
+
+		assertEquals(2, productServiceImpl.getProductPage("", 2).getProducts().size());
+	}
+
+	@Test
+	public void malformedPageCursorsAreRejected()
+	{
+		/*
+		 * Not Base64, standard Base64 instead of URL safe, and not a number.
+		 */
+
+		for (String cursor : new String[] { "!!!", "NQ=x", "+/8", "YWJj", "MTIzNDU2Nzg5MDEy", "NSA" }) {
+			assertThrows(IllegalArgumentException.class, () -> productServiceImpl.getProductPage(cursor, 2), cursor);
+		}
+
+		verify(productRepository, never()).findByProductIdGreaterThanAndRemovedFalseOrderByProductId(anyInt(), any());
+	}
+
+	/**
+	 * Creates a product entity.
+	 * 
+	 * @param productId Unique identifier.
+	 * @param providerUniqueUrl Provider unique URL.
+	 * @param removed True if it is removed.
+	 * 
+	 * @return Product entity.
+	 */
+	private static ProductEntity product(int productId, String providerUniqueUrl, boolean removed)
+	{
+		ProductEntity product = new ProductEntity();
+		product.setProductId(productId);
+		product.setName("Product " + productId);
+		product.setProviderUniqueUrl(providerUniqueUrl);
+		product.setRemoved(removed);
+
+		return product;
+	}
+}
\ No newline at end of file
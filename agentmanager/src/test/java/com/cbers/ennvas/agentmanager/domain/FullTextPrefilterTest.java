@@ -0,0 +1,230 @@
+package com.cbers.ennvas.agentmanager.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Checks that the full-text prefilter never loses a product the recommender
+ * would give a utility greater than 0: the products found by its search,
+ * with a model of the InnoDB full-text parser, are compared with the
+ * unfiltered products that contain a query word.
+ * 
+ * The apostrophe rules of the parser depend on the server version, so the
+ * search is checked with apostrophes as word characters and as separators.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class FullTextPrefilterTest
+{
+
+	private static final String DEMO_PRODUCTS = "../_demo-and-test/demo-products.json";
+
+	/**
+	 * Product texts whose words the parser may split differently.
+	 */
+	private static final String[] TEXTS = {
+		"O'Neil shoes",
+		"Chip de 3.ª generación",
+		"rock'n'roll",
+		"l’amour fou",
+		"foo_bar baz-qux",
+		"Größe 10×20 cm, µKabel",
+		"Smartphone Ñandú iPhone-compatible"
+	};
+
+	private static final String[] PHRASES = {
+		"smartphone",
+		"apple iphone",
+		"phone",
+		"cámara",
+		"camara",
+		"generacion",
+		"neil",
+		"oneil",
+		"O'Neil",
+		"roll",
+		"amour",
+		"foo",
+		"bar",
+		"qux",
+		"kabel",
+		"gre",
+		"nandu",
+		"zzz",
+		"a",
+		"pantalla negro azul"
+	};
+
+	private static final Set<String> STOPWORDS = new HashSet<String>(Arrays.asList(
+		"a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en",
+		"for", "from", "how", "i", "in", "is", "it", "la", "of", "on", "or",
+		"that", "the", "this", "to", "was", "what", "when", "where", "who",
+		"will", "with", "und", "www"
+	));
+
+	private List<String> products;
+
+	private FullTextPrefilter prefilter;
+
+	@BeforeEach
+	public void addProducts() throws IOException
+	{
+		products = new ArrayList<String>(Arrays.asList(TEXTS));
+
+		for (JsonNode product : new ObjectMapper().readTree(new File(DEMO_PRODUCTS))) {
+			products.add(product.path("name").asText() + " " + product.path("type").asText() + " "
+				+ product.path("brand").asText() + " " + product.path("description").asText());
+		}
+
+		prefilter = new FullTextPrefilter();
+		ReflectionTestUtils.setField(prefilter, "enabled", true);
+		ReflectionTestUtils.setField(prefilter, "minWordLength", 3);
+		ReflectionTestUtils.setField(prefilter, "maxWords", 500);
+
+		for (String text : products) {
+			ProductEntity product = new ProductEntity();
+			product.setName(text);
+			prefilter.addWords(product);
+		}
+	}
+
+	@Test
+	public void searchFindsUnfilteredResults()
+	{
+		for (String phrase : PHRASES) {
+			String query = prefilter.toBooleanQuery(phrase);
+
+			if (query == null) {
+				continue;
+			}
+
+			for (boolean apostropheWordChar : new boolean[] { true, false }) {
+				for (String text : products) {
+					assertEquals(
+						FullTextPrefilterTest.containsQueryWord(text, phrase),
+						FullTextPrefilterTest.matches(text, query, apostropheWordChar),
+						"\"" + phrase + "\" (" + query + ") in \"" + text + "\""
+					);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void splitWordsAreNotPrefiltered()
+	{
+		assertNull(prefilter.toBooleanQuery("neil"));
+		assertNull(prefilter.toBooleanQuery("amour"));
+		assertNull(prefilter.toBooleanQuery("roll"));
+		assertNull(prefilter.toBooleanQuery("kabel"));
+
+		assertEquals("qux*", prefilter.toBooleanQuery("qux"));
+		assertTrue(prefilter.toBooleanQuery("bar").contains("foo_bar*"));
+		assertEquals("generación*", prefilter.toBooleanQuery("generacion"));
+		assertEquals("", prefilter.toBooleanQuery("zzz"));
+	}
+
+	@Test
+	public void tooManyWordsAreNotPrefiltered()
+	{
+		ReflectionTestUtils.setField(prefilter, "maxWords", 2);
+
+		assertNull(prefilter.toBooleanQuery("a"));
+		assertNull(prefilter.toBooleanQuery("ra"));
+		assertNotNull(prefilter.toBooleanQuery("smartphone"));
+	}
+
+	/**
+	 * Checks if a product text contains a query word, as the recommender
+	 * does.
+	 * 
+	 * @param text Product text.
+	 * @param phrase Query phrase.
+	 * 
+	 * @return True if the product has a utility greater than 0.
+	 */
+	private static boolean containsQueryWord(String text, String phrase)
+	{
+		String folded = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "").toLowerCase(Locale.ROOT);
+
+		for (String word : phrase.replaceAll("[^\\sA-Za-z0-9]", "").split("[\\s]+")) {
+			if (folded.contains(word.toLowerCase(Locale.ROOT))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Checks if a boolean mode full-text search of prefixes finds a product
+	 * text, with a model of the InnoDB full-text parser: words are made of
+	 * letters, digits and underscores (and apostrophes, if set), and only the
+	 * words of the indexed lengths that are not stopwords are indexed.
+	 * 
+	 * @param text Product text.
+	 * @param query Boolean mode full-text search.
+	 * @param apostropheWordChar True if apostrophes are word characters.
+	 * 
+	 * @return True if the search finds the product.
+	 */
+	private static boolean matches(String text, String query, boolean apostropheWordChar)
+	{
+		List<String> indexed = new ArrayList<String>();
+		StringBuilder word = new StringBuilder();
+
+		for (char c : (text.toLowerCase(Locale.ROOT) + " ").toCharArray()) {
+			if (Character.isLetterOrDigit(c) || c == '_' || (apostropheWordChar && (c == '\'' || c == '’'))) {
+				word.append(c);
+			} else if (word.length() > 0) {
+				if (word.length() >= 3 && word.length() <= 84 && !STOPWORDS.contains(word.toString())) {
+					indexed.add(word.toString());
+				}
+
+				word.setLength(0);
+			}
+		}
+
+		for (String term : query.split(" ")) {
+			if (term.isEmpty()) {
+				continue;
+			}
+
+			assertTrue(term.endsWith("*"), term);
+
+			for (String w : indexed) {
+				if (w.startsWith(term.substring(0, term.length() - 1))) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.cbers.ennvas.agentmanager.persistence.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.cbers.ennvas.agentmanager.domain.resource.ProductFilter;
+import com.cbers.ennvas.agentmanager.persistence.entity.ProductEntity;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/**
+ * Checks that the data base filters of the products give the same products
+ * as the recommender utility function filters: the filter test products
+ * and filters, shared with the recommender tests, are run against an
+ * in-memory data base.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@DataJpaTest
+public class ProductRepositoryCustomImplTest
+{
+
+	private static final String FILTER_TEST = "../_demo-and-test/filter-test.json";
+
+	private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Test
+	public void filtersMatchRecommenderFilters() throws IOException
+	{
+		JsonNode filterTest = objectMapper.readTree(new File(FILTER_TEST));
+
+		List<ProductEntity> products = new ArrayList<ProductEntity>();
+
+		for (JsonNode product : filterTest.get("products")) {
+			products.add(objectMapper.treeToValue(product, ProductEntity.class));
+		}
+
+		/*
+		 * A removed product meets every filter, but is never sent.
+		 */
+
+		ProductEntity removed = objectMapper.treeToValue(filterTest.get("products").get(0), ProductEntity.class);
+		removed.setProviderUniqueUrl("https://example.com/removed");
+		removed.setRemoved(true);
+		products.add(removed);
+
+		productRepository.saveAll(products);
+
+		for (JsonNode test : filterTest.get("filters")) {
+			ProductFilter filter = objectMapper.treeToValue(test, ProductFilter.class);
+			List<String> expected = new ArrayList<String>();
+
+			test.get("expected").forEach(url -> expected.add(url.asText()));
+
+			try (Stream<ProductEntity> stream = productRepository.streamByFilter(filter, null)) {
+				assertEquals(
+					expected,
+					stream.map(ProductEntity::getProviderUniqueUrl).collect(Collectors.toList()),
+					test.get("description").asText() + " " + filter
+				);
+			}
+		}
+	}
+}
\ No newline at end of file
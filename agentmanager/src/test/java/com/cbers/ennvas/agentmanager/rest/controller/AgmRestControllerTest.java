@@ -0,0 +1,222 @@
+package com.cbers.ennvas.agentmanager.rest.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import com.cbers.ennvas.agentmanager.application.service.IngestServiceImpl;
+import com.cbers.ennvas.agentmanager.application.service.ProductServiceImpl;
+import com.cbers.ennvas.agentmanager.rest.controller.data.ProductDeltaResponse;
+import com.cbers.ennvas.agentmanager.rest.controller.data.UniqueProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Checks the conditional requests (ETag and If-None-Match), the product
+ * deltas and the product pages of the agent manager REST controller.
+ * 
+ * The catalogue is at version 7 of epoch 42, and has one product.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@ExtendWith(MockitoExtension.class)
+public class AgmRestControllerTest
+{
+
+	private static final String ETAG = "W/\"42.7\"";
+
+	@Mock
+	private ProductServiceImpl productServiceImpl;
+
+	@Mock
+	private IngestServiceImpl ingestServiceImpl;
+
+	@Spy
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	@InjectMocks
+	private AgmRestController agmRestController;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setUp()
+	{
+		mockMvc = MockMvcBuilders.standaloneSetup(agmRestController).build();
+
+		lenient().when(productServiceImpl.getCatalogueEpoch()).thenReturn(42L);
+		lenient().when(productServiceImpl.getCatalogueVersion()).thenReturn(7L);
+
+		lenient().doAnswer(invocation -> {
+			Consumer<UniqueProductResponse> action = invocation.getArgument(0);
+			action.accept(AgmRestControllerTest.product("https://example.com/1"));
+			return null;
+		}).when(productServiceImpl).forEachProduct(any());
+	}
+
+	@Test
+	public void matchingEtagsAreNotModified() throws Exception
+	{
+		for (String ifNoneMatch : new String[] { ETAG, "\"42.7\"", "\"1.1\", W/\"42.7\"", "W/\"1.1\",W/\"42.7\"", "*" }) {
+			mockMvc.perform(get("/ennvas/agm/rest/retrieve").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+				.andExpect(content().string(""));
+
+			mockMvc.perform(get("/ennvas/agm/rest/delta?since=3&epoch=42").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG));
+		}
+
+		verify(productServiceImpl, never()).forEachProduct(any());
+		verify(productServiceImpl, never()).getProductsSince(anyLong());
+	}
+
+	@Test
+	public void otherEtagsAreModified() throws Exception
+	{
+		for (String ifNoneMatch : new String[] { "W/\"42.6\"", "\"41.7\"", "W/\"42.7", "42.7", "W/\"4.27\", \"\"" }) {
+			mockMvc.perform(get("/ennvas/agm/rest/retrieve").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+				.andExpect(jsonPath("$.epoch").value(42))
+				.andExpect(jsonPath("$.version").value(7))
+				.andExpect(jsonPath("$.products[0].providerUniqueUrl").value("https://example.com/1"));
+		}
+
+		mockMvc.perform(get("/ennvas/agm/rest/retrieve"))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG));
+	}
+
+	@Test
+	public void unknownVersionsGetAllProducts() throws Exception
+	{
+		/*
+		 * No version, another epoch's version and a version after the current
+		 * one.
+		 */
+
+		for (String parameters : new String[] { "", "?since=0&epoch=42", "?since=3", "?since=3&epoch=41", "?since=8&epoch=42" }) {
+			mockMvc.perform(get("/ennvas/agm/rest/delta" + parameters))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+				.andExpect(jsonPath("$.epoch").value(42))
+				.andExpect(jsonPath("$.version").value(7))
+				.andExpect(jsonPath("$.full").value(true))
+				.andExpect(jsonPath("$.products.length()").value(1))
+				.andExpect(jsonPath("$.products[0].providerUniqueUrl").value("https://example.com/1"))
+				.andExpect(jsonPath("$.removed.length()").value(0));
+		}
+
+		verify(productServiceImpl, never()).getProductsSince(anyLong());
+	}
+
+	@Test
+	public void knownVersionsGetDelta() throws Exception
+	{
+		ProductDeltaResponse delta = new ProductDeltaResponse();
+		delta.setEpoch(42);
+		delta.setVersion(7);
+		delta.setSince(3);
+		delta.setFull(false);
+		delta.setProducts(Arrays.asList(AgmRestControllerTest.product("https://example.com/2")));
+		delta.setRemoved(Arrays.asList("https://example.com/3"));
+
+		when(productServiceImpl.getProductsSince(3)).thenReturn(delta);
+
+		mockMvc.perform(get("/ennvas/agm/rest/delta?since=3&epoch=42").header(HttpHeaders.IF_NONE_MATCH, "W/\"42.3\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+			.andExpect(jsonPath("$.since").value(3))
+			.andExpect(jsonPath("$.full").value(false))
+			.andExpect(jsonPath("$.products[0].providerUniqueUrl").value("https://example.com/2"))
+			.andExpect(jsonPath("$.removed.length()").value(1))
+			.andExpect(jsonPath("$.removed[0]").value("https://example.com/3"));
+
+		verify(productServiceImpl, never()).forEachProduct(any());
+	}
+
+	@Test
+	public void currentVersionGetsEmptyDelta() throws Exception
+	{
+		ProductDeltaResponse delta = new ProductDeltaResponse();
+		delta.setEpoch(42);
+		delta.setVersion(7);
+		delta.setSince(7);
+		delta.setFull(false);
+		delta.setProducts(Collections.<UniqueProductResponse>emptyList());
+		delta.setRemoved(Collections.<String>emptyList());
+
+		when(productServiceImpl.getProductsSince(7)).thenReturn(delta);
+
+		mockMvc.perform(get("/ennvas/agm/rest/delta?since=7&epoch=42"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.full").value(false))
+			.andExpect(jsonPath("$.products.length()").value(0))
+			.andExpect(jsonPath("$.removed.length()").value(0));
+	}
+
+	@Test
+	public void invalidPagesAreBadRequests() throws Exception
+	{
+		when(productServiceImpl.getProductPage("!!!", 10)).thenThrow(new IllegalArgumentException("Invalid page cursor: !!!"));
+
+		mockMvc.perform(get("/ennvas/agm/rest/products?cursor=!!!&size=10"))
+			.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/ennvas/agm/rest/products?size=0"))
+			.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/ennvas/agm/rest/products?size=10001"))
+			.andExpect(status().isBadRequest());
+
+		verify(productServiceImpl, times(1)).getProductPage(any(), anyInt());
+	}
+
+	/**
+	 * Creates a product response.
+	 * 
+	 * @param providerUniqueUrl Provider unique URL.
+	 * 
+	 * @return Product response.
+	 */
+	private static UniqueProductResponse product(String providerUniqueUrl)
+	{
+		UniqueProductResponse product = new UniqueProductResponse();
+		product.setName("Product");
+		product.setProviderUniqueUrl(providerUniqueUrl);
+
+		return product;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.cbers.frontend;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/*
+ * Requests to the orchestrator share a single REST template, backed by a pool
+ * of persistent (keep-alive) connections, so they do not open a new connection
+ * each.
+ */
+@Configuration
+public class HttpClientConfig
+{
+
+    @Value("${front.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${front.http.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${front.http.connect-timeout:2000}")
+    private int connectTimeout;
+
+    @Value("${front.http.read-timeout:60000}")
+    private int readTimeout;
+
+    @Value("${front.http.connection-request-timeout:2000}")
+    private int connectionRequestTimeout;
+
+    @Value("${front.http.keep-alive:15000}")
+    private long keepAlive;
+
+    private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+    @Bean
+    public PoolingHttpClientConnectionManager connectionManager()
+    {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager)
+    {
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout(connectTimeout)
+            .setSocketTimeout(readTimeout)
+            .setConnectionRequestTimeout(connectionRequestTimeout)
+            .build();
+
+        /*
+         * Keep idle connections for less time than the orchestrator (Tomcat
+         * closes them after 20 seconds by default).
+         */
+
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+            return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+        };
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy(keepAliveStrategy)
+            .evictExpiredConnections()
+            .evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient)
+    {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+}
\ No newline at end of file
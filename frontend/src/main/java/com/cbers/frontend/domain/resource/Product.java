@@ -21,6 +21,11 @@ import lombok.NoArgsConstructor;
 public class Product
 {
 
+	/**
+	 * Unique identifier, given by the agent manager. Null if it is unknown.
+	 */
+	private Integer productId;
+
 	/**
 	 * Name.
 	 */
@@ -83,6 +88,7 @@ public class Product
 	 */
 	public Product(Product p)
 	{
+		this.productId = p.productId;
 		this.name = p.name;
 		this.type = p.type;
 		this.brand = p.brand;
@@ -100,6 +106,7 @@ public class Product
 	public String toString()
 	{
 		return "Product: [ " +
+		"productId: " + this.productId + ", " +
 		"name: " + this.name + ", " +
 		"type: " + this.type + ", " +
 		"brand: " + this.brand + ", " +
@@ -1,16 +1,21 @@
 package com.cbers.frontend.rest.controller;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.cbers.frontend.domain.resource.Product;
 import com.cbers.frontend.domain.resource.ProductList;
 import com.cbers.frontend.domain.resource.Query;
+import com.cbers.frontend.rest.data.HttpPoolStats;
 
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -27,6 +32,15 @@ public class FrontRestController
     @Autowired
     private ApplicationArguments applicationArguments;
 
+    /*
+     * Shared REST template, with pooled connections (see HttpClientConfig).
+     */
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+
     private static final String ORCHESTRATOR_PATH = "/ennvas/orch/rest/search";
 
 
@@ -43,8 +57,6 @@ public class FrontRestController
     {
         log.info("Received query.");
 
-        RestTemplate restTemplate = new RestTemplate();
-
 		/*
 		 * Retrieve command line arguments (pre-validated).
 		 */
@@ -76,4 +88,32 @@ public class FrontRestController
 
         return orchResponse;
     }
+
+    /*
+    * Returns the HTTP client connection pool statistics (connections in use, idle and waited for).
+    */
+    @GetMapping(
+        value = "/http-pool",
+        produces = "application/json"
+    )
+    public HttpPoolStats getHttpPool()
+    {
+        List<HttpPoolStats.Route> routes = new ArrayList<>();
+
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            PoolStats stats = connectionManager.getStats(route);
+
+            routes.add(new HttpPoolStats.Route(
+                route.getTargetHost().toURI(),
+                stats.getLeased(),
+                stats.getPending(),
+                stats.getAvailable(),
+                stats.getMax()
+            ));
+        }
+
+        PoolStats total = connectionManager.getTotalStats();
+
+        return new HttpPoolStats(total.getLeased(), total.getPending(), total.getAvailable(), total.getMax(), routes);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.cbers.ennvas.orchestrator;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * HTTP client configuration.
+ * 
+ * Requests to the agent manager and the recommender share a single REST
+ * template, backed by a pool of persistent (keep-alive) Apache HttpClient
+ * connections, so they do not open a new connection each. The Apache
+ * HttpClient is also needed for PATCH requests, which the JDK one does not
+ * support.
+ * 
+ * In reactive mode (see ReactiveOrchRestController), searches use a
+ * non-blocking Reactor Netty web client instead, with its own pool and the
+ * same settings.
+ * 
+ * Product data can be transferred as Smile (binary JSON) instead of JSON,
+ * which is smaller and faster to read and write (see "orch.http.smile"), and
+ * compressed with gzip (see "orch.http.compression").
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@Configuration
+public class HttpClientConfig
+{
+
+	/**
+	 * Maximum number of connections, in total and per route (that is, per
+	 * component).
+	 */
+	@Value("${orch.http.max-connections:200}")
+	private int maxConnections;
+
+	@Value("${orch.http.max-connections-per-route:50}")
+	private int maxConnectionsPerRoute;
+
+	/**
+	 * Timeouts (in milliseconds): to connect, to wait for response data, and
+	 * to wait for a pooled connection when all of them are in use.
+	 */
+	@Value("${orch.http.connect-timeout:2000}")
+	private int connectTimeout;
+
+	@Value("${orch.http.read-timeout:60000}")
+	private int readTimeout;
+
+	@Value("${orch.http.connection-request-timeout:2000}")
+	private int connectionRequestTimeout;
+
+	/**
+	 * Time (in milliseconds) an idle connection is kept, unless the server
+	 * responds a shorter Keep-Alive timeout.
+	 */
+	@Value("${orch.http.keep-alive:15000}")
+	private long keepAlive;
+
+	/**
+	 * True to send and accept Smile instead of JSON.
+	 */
+	@Value("${orch.http.smile:false}")
+	private boolean smile;
+
+	/**
+	 * True to accept gzip responses, and to send gzip request bodies of at
+	 * least MIN_COMPRESSED_SIZE bytes.
+	 */
+	@Value("${orch.http.compression:false}")
+	private boolean compression;
+
+	/**
+	 * Idle connections are validated before being reused after this time (in
+	 * milliseconds).
+	 */
+	private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+	/**
+	 * Minimum size (in bytes) of the compressed request bodies, as the
+	 * servers' minimum compressed response size.
+	 */
+	private static final int MIN_COMPRESSED_SIZE = 2048;
+
+	@Bean
+	public PoolingHttpClientConnectionManager connectionManager()
+	{
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+		connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+		return connectionManager;
+	}
+
+	@Bean(destroyMethod = "close")
+	public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager)
+	{
+		RequestConfig requestConfig = RequestConfig.custom()
+			.setConnectTimeout(connectTimeout)
+			.setSocketTimeout(readTimeout)
+			.setConnectionRequestTimeout(connectionRequestTimeout)
+			.build();
+
+		/*
+		 * Keep idle connections for less time than the servers (Tomcat closes
+		 * them after 20 seconds by default), so a connection is not reused
+		 * just when it is being closed.
+		 */
+
+		ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+			long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+			return duration > 0 ? Math.min(duration, keepAlive) : keepAlive;
+		};
+
+		HttpClientBuilder builder = HttpClients.custom()
+			.setConnectionManager(connectionManager)
+			.setDefaultRequestConfig(requestConfig)
+			.setKeepAliveStrategy(keepAliveStrategy)
+			.evictExpiredConnections()
+			.evictIdleConnections(keepAlive, TimeUnit.MILLISECONDS);
+
+		/*
+		 * The Apache HttpClient accepts and decompresses gzip responses by
+		 * default.
+		 */
+
+		if (!compression) {
+			builder.disableContentCompression();
+		}
+
+		return builder.build();
+	}
+
+	@Bean
+	public RestTemplate restTemplate(CloseableHttpClient httpClient)
+	{
+		RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+
+		/*
+		 * The Smile converter is after the JSON one by default. Move it first,
+		 * so request bodies are sent as Smile and Smile is accepted first.
+		 */
+
+		if (smile) {
+			restTemplate.getMessageConverters().removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+			restTemplate.getMessageConverters().add(0, new MappingJackson2SmileHttpMessageConverter());
+		}
+
+		if (compression) {
+			restTemplate.getInterceptors().add(HttpClientConfig.gzipRequestInterceptor());
+		}
+
+		return restTemplate;
+	}
+
+	/**
+	 * Compresses request bodies of at least MIN_COMPRESSED_SIZE bytes (that
+	 * is, the knowledge bases sent to the recommender) with gzip.
+	 * 
+	 * @return Request interceptor.
+	 */
+	private static ClientHttpRequestInterceptor gzipRequestInterceptor()
+	{
+		return (request, body, execution) -> {
+			if (body.length < MIN_COMPRESSED_SIZE) {
+				return execution.execute(request, body);
+			}
+
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+
+			try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+				gzip.write(body);
+			}
+
+			request.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+			request.getHeaders().setContentLength(compressed.size());
+
+			return execution.execute(request, compressed.toByteArray());
+		};
+	}
+
+	/**
+	 * Non-blocking web client, for the reactive mode searches.
+	 * 
+	 * Searches wait for a pooled connection up to the read timeout, as many
+	 * more of them may be in flight than connections. Responses are not
+	 * limited in size, as the agent manager may send all its products. If
+	 * compression is enabled, gzip responses are accepted, but request bodies
+	 * are not compressed.
+	 */
+	@Bean
+	@ConditionalOnWebApplication(type = Type.REACTIVE)
+	public WebClient webClient(WebClient.Builder builder)
+	{
+		ConnectionProvider connectionProvider = ConnectionProvider.builder("orch")
+			.maxConnections(maxConnectionsPerRoute)
+			.pendingAcquireMaxCount(-1)
+			.pendingAcquireTimeout(Duration.ofMillis(readTimeout))
+			.maxIdleTime(Duration.ofMillis(keepAlive))
+			.build();
+
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+			.compress(compression)
+			.tcpConfiguration(tcpClient -> tcpClient
+				.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+				.doOnConnected(connection -> connection.addHandlerLast(new ReadTimeoutHandler(readTimeout, TimeUnit.MILLISECONDS)))
+			);
+
+		return builder
+			.clientConnector(new ReactorClientHttpConnector(httpClient))
+			.codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+			.build();
+	}
+}
\ No newline at end of file
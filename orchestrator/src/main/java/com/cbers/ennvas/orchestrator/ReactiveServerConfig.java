@@ -0,0 +1,35 @@
+package com.cbers.ennvas.orchestrator;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reactive mode server configuration.
+ * 
+ * The server is Reactor Netty, which notices as soon as a client disconnects
+ * and cancels its search. Otherwise, Tomcat would be used, as it is also
+ * required for the servlet mode.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@Configuration
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveServerConfig
+{
+
+	@Bean
+	public NettyReactiveWebServerFactory nettyReactiveWebServerFactory()
+	{
+		return new NettyReactiveWebServerFactory();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.cbers.ennvas.orchestrator.application.service;
+
+import com.cbers.ennvas.orchestrator.domain.CatalogueSnapshot;
+
+/**
+ * Catalogue snapshot service interface.
+ * 
+ * Keeps a local snapshot of the agent manager product data, loaded into the
+ * recommender as its resident knowledge base, so searches do not need to
+ * fetch it.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+public interface CatalogueService
+{
+
+	/**
+	 * Returns the current snapshot. Only waits for the agent manager if there
+	 * is none yet.
+	 * 
+	 * @return Current snapshot.
+	 */
+	CatalogueSnapshot getSnapshot();
+
+	/**
+	 * Returns the current snapshot, without waiting for the agent manager.
+	 * 
+	 * @return Current snapshot, or null if there is none yet.
+	 */
+	CatalogueSnapshot getCurrentSnapshot();
+
+	/**
+	 * Checks the agent manager product data and publishes a new snapshot,
+	 * loading it into the recommender if it changed.
+	 * 
+	 * Concurrent calls share a single check.
+	 * 
+	 * @return New snapshot.
+	 */
+	CatalogueSnapshot refresh();
+
+	/**
+	 * Loads the snapshot into the recommender again, after it responded that
+	 * a knowledge base version is not the resident one (for example, because
+	 * it was restarted).
+	 * 
+	 * Concurrent calls share a single load.
+	 * 
+	 * @param staleVersion Version the recommender did not accept.
+	 * 
+	 * @return New snapshot.
+	 */
+	CatalogueSnapshot reload(long staleVersion);
+}
\ No newline at end of file
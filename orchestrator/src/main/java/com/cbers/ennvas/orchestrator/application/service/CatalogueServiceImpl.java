@@ -0,0 +1,503 @@
+package com.cbers.ennvas.orchestrator.application.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.cbers.ennvas.orchestrator.domain.CatalogueSnapshot;
+import com.cbers.ennvas.orchestrator.domain.resource.Product;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductDelta;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductList;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductPage;
+import com.cbers.ennvas.orchestrator.rest.data.KnowledgeBaseDelta;
+import com.cbers.ennvas.orchestrator.rest.data.KnowledgeBaseVersion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Catalogue snapshot service interface implementation.
+ * 
+ * The snapshot is refreshed on a schedule (see "orch.catalogue.
+ * refresh-interval" in application.properties) and on demand. Only the
+ * product data changes since the snapshot catalogue version (and epoch, so
+ * all the product data is sent if the agent manager data base was recreated)
+ * are requested, with the ETag of the snapshot, so unchanged data is not
+ * sent again. The
+ * changes are applied to the recommender knowledge base as a delta, and all
+ * the products are only loaded into it when it lost them.
+ * 
+ * Only one refresh runs at a time: concurrent callers wait for it and get
+ * its snapshot, so a burst of searches cannot overload the agent manager.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@Service
+public class CatalogueServiceImpl implements CatalogueService
+{
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogueServiceImpl.class);
+
+	private static final String AGENT_MANAGER_PATH = "/ennvas/agm/rest/delta?since={since}&epoch={epoch}";
+	private static final String AGENT_MANAGER_PAGE_PATH = "/ennvas/agm/rest/products?size={size}&cursor={cursor}";
+	private static final String RECOMMENDER_KNOWLEDGE_BASE_PATH = "/ennvas/rcm/rest/knowledge-base";
+
+	/**
+	 * Plain refresh, not caused by a stale recommender version.
+	 */
+	private static final long NO_STALE_VERSION = -1;
+
+	@Autowired
+	private ApplicationArguments applicationArguments;
+
+	/**
+	 * Number of products per agent manager page, for the first snapshot.
+	 */
+	@Value("${orch.catalogue.page-size:1000}")
+	private int pageSize;
+
+	/**
+	 * Shared REST template, with pooled connections (see HttpClientConfig).
+	 * Apache HttpClient based, as the JDK one does not support PATCH
+	 * requests.
+	 */
+	@Autowired
+	private RestTemplate restTemplate;
+
+	/**
+	 * Current snapshot. Null until the first refresh.
+	 */
+	private volatile CatalogueSnapshot snapshot;
+
+	/**
+	 * Refresh in progress. Null if there is none.
+	 */
+	private CompletableFuture<CatalogueSnapshot> inFlight;
+
+	/**
+	 * Returns the current snapshot. Only waits for the agent manager if there
+	 * is none yet.
+	 * 
+	 * @return Current snapshot.
+	 */
+	@Override
+	public CatalogueSnapshot getSnapshot()
+	{
+		CatalogueSnapshot current = this.snapshot;
+
+		return current != null ? current : this.refresh();
+	}
+
+	/**
+	 * Returns the current snapshot, without waiting for the agent manager.
+	 * 
+	 * @return Current snapshot, or null if there is none yet.
+	 */
+	@Override
+	public CatalogueSnapshot getCurrentSnapshot()
+	{
+		return this.snapshot;
+	}
+
+	/**
+	 * Checks the agent manager product data and publishes a new snapshot,
+	 * loading it into the recommender if it changed.
+	 * 
+	 * @return New snapshot.
+	 */
+	@Override
+	public CatalogueSnapshot refresh()
+	{
+		return this.singleFlight(NO_STALE_VERSION);
+	}
+
+	/**
+	 * Loads the snapshot into the recommender again.
+	 * 
+	 * @param staleVersion Version the recommender did not accept.
+	 * 
+	 * @return New snapshot.
+	 */
+	@Override
+	public CatalogueSnapshot reload(long staleVersion)
+	{
+		CatalogueSnapshot next = this.singleFlight(staleVersion);
+
+		/*
+		 * A refresh that was already in progress may not have reloaded it.
+		 */
+
+		if (next.getKnowledgeBaseVersion() == staleVersion) {
+			next = this.singleFlight(staleVersion);
+		}
+
+		return next;
+	}
+
+	/**
+	 * Refreshes the snapshot periodically. Errors are logged, and the current
+	 * snapshot is kept.
+	 */
+	@Scheduled(
+		initialDelayString = "${orch.catalogue.refresh-initial-delay:0}",
+		fixedDelayString = "${orch.catalogue.refresh-interval:60000}"
+	)
+	public void scheduledRefresh()
+	{
+		try {
+			this.refresh();
+		} catch (RestClientException e) {
+			log.warn("Scheduled catalogue refresh failed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Runs a refresh, or waits for the one in progress.
+	 * 
+	 * @param staleVersion Version the recommender did not accept, or
+	 * NO_STALE_VERSION.
+	 * 
+	 * @return New snapshot.
+	 */
+	private CatalogueSnapshot singleFlight(long staleVersion)
+	{
+		CompletableFuture<CatalogueSnapshot> future;
+		boolean owner = false;
+
+		synchronized (this) {
+			if (this.inFlight == null) {
+				this.inFlight = new CompletableFuture<CatalogueSnapshot>();
+				owner = true;
+			}
+
+			future = this.inFlight;
+		}
+
+		if (owner) {
+			try {
+				future.complete(this.update(staleVersion));
+			} catch (RuntimeException e) {
+				future.completeExceptionally(e);
+			} finally {
+				synchronized (this) {
+					this.inFlight = null;
+				}
+			}
+		}
+
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks the agent manager product data and the recommender resident
+	 * knowledge base, and publishes a new snapshot.
+	 * 
+	 * @param staleVersion Version the recommender did not accept, or
+	 * NO_STALE_VERSION.
+	 * 
+	 * @return New snapshot.
+	 */
+	private CatalogueSnapshot update(long staleVersion)
+	{
+		/*
+		 * Retrieve command line arguments (pre-validated).
+		 */
+
+		String[] args = applicationArguments.getSourceArgs();
+		String agentManagerUrl = args[0];
+		String recommenderUrl = args[1];
+
+		CatalogueSnapshot current = this.snapshot;
+
+		/*
+		 * Request the agent manager product data changes since the snapshot
+		 * catalogue version, or all the product data if there is no snapshot.
+		 */
+
+		ResponseEntity<ProductDelta> agmResponse;
+
+		if (current == null) {
+			agmResponse = this.retrieveAll(agentManagerUrl);
+		} else {
+			HttpHeaders headers = new HttpHeaders();
+
+			if (current.getEtag() != null) {
+				headers.setIfNoneMatch(current.getEtag());
+			}
+
+			log.info("Checking agent manager product data changes since catalogue version " + current.getCatalogueVersion() + ".");
+
+			agmResponse = this.restTemplate.exchange(
+				agentManagerUrl + AGENT_MANAGER_PATH,
+				HttpMethod.GET,
+				new HttpEntity<Void>(headers),
+				ProductDelta.class,
+				current.getCatalogueVersion(),
+				current.getCatalogueEpoch()
+			);
+		}
+
+		ProductDelta delta = agmResponse.getBody();
+		List<Product> products;
+		long catalogueEpoch;
+		long catalogueVersion;
+		String etag;
+		boolean changed;
+
+		if (agmResponse.getStatusCode() == HttpStatus.NOT_MODIFIED && current != null) {
+			log.info("Agent manager product data not modified.");
+
+			products = current.getProducts();
+			catalogueEpoch = current.getCatalogueEpoch();
+			catalogueVersion = current.getCatalogueVersion();
+			etag = current.getEtag();
+			changed = false;
+		} else {
+			boolean full = delta.isFull() || current == null;
+
+			products = full ? delta.getProducts() : merge(current.getProducts(), delta);
+			catalogueEpoch = delta.getEpoch();
+			catalogueVersion = delta.getVersion();
+			etag = agmResponse.getHeaders().getETag();
+			changed = full || !delta.getProducts().isEmpty() || !delta.getRemoved().isEmpty();
+
+			if (full) {
+				log.info("Received " + products.size() + " products from agent manager.");
+			} else {
+				log.info("Received " + delta.getProducts().size() + " added or updated and " + delta.getRemoved().size() + " removed products from agent manager.");
+			}
+		}
+
+		/*
+		 * Update the recommender: apply the delta, or load all the products if
+		 * there is no delta to apply or the recommender does not have the
+		 * snapshot.
+		 */
+
+		long version;
+
+		if (!changed && current.getKnowledgeBaseVersion() != staleVersion && this.isResident(recommenderUrl, current)) {
+			version = current.getKnowledgeBaseVersion();
+		} else if (changed && current != null && !delta.isFull() && current.getKnowledgeBaseVersion() != staleVersion) {
+			version = this.applyDelta(recommenderUrl, current.getKnowledgeBaseVersion(), delta, products);
+		} else {
+			version = this.load(recommenderUrl, products);
+		}
+
+		CatalogueSnapshot next = new CatalogueSnapshot(products, catalogueEpoch, catalogueVersion, etag, version, System.currentTimeMillis());
+
+		this.snapshot = next;
+
+		return next;
+	}
+
+	/**
+	 * Retrieves all the agent manager product data, in pages of pageSize
+	 * products, so no response has to hold the whole catalogue.
+	 * 
+	 * The catalogue epoch, version and ETag are those of the first page: products
+	 * changed while the pages are retrieved are retrieved again in the next
+	 * delta.
+	 * 
+	 * @param agentManagerUrl Agent manager URL.
+	 * 
+	 * @return All the product data, as a full delta.
+	 */
+	private ResponseEntity<ProductDelta> retrieveAll(String agentManagerUrl)
+	{
+		log.info("Retrieving agent manager product data in pages of " + this.pageSize + " products.");
+
+		List<Product> products = new ArrayList<Product>();
+		HttpHeaders headers = null;
+		long epoch = 0;
+		long version = 0;
+		String cursor = "";
+		int pages = 0;
+
+		do {
+			ResponseEntity<ProductPage> pageResponse = this.restTemplate.getForEntity(
+				agentManagerUrl + AGENT_MANAGER_PAGE_PATH,
+				ProductPage.class,
+				this.pageSize,
+				cursor
+			);
+
+			ProductPage page = pageResponse.getBody();
+
+			if (headers == null) {
+				headers = pageResponse.getHeaders();
+				epoch = page.getEpoch();
+				version = page.getVersion();
+			}
+
+			products.addAll(page.getProducts());
+			cursor = page.getNext();
+			pages++;
+		} while (cursor != null);
+
+		log.info("Retrieved " + pages + " pages.");
+
+		return new ResponseEntity<ProductDelta>(
+			new ProductDelta(epoch, version, 0, true, products, new ArrayList<String>()),
+			headers,
+			HttpStatus.OK
+		);
+	}
+
+	/**
+	 * Loads products into the recommender, replacing its resident knowledge
+	 * base.
+	 * 
+	 * @param recommenderUrl Recommender URL.
+	 * @param products Products.
+	 * 
+	 * @return New recommender knowledge base version.
+	 */
+	private long load(String recommenderUrl, List<Product> products)
+	{
+		log.info("Loading " + products.size() + " products into the recommender.");
+
+		KnowledgeBaseVersion loaded = this.restTemplate.postForObject(
+			recommenderUrl + RECOMMENDER_KNOWLEDGE_BASE_PATH,
+			new ProductList(products),
+			KnowledgeBaseVersion.class
+		);
+
+		log.info("Recommender knowledge base version is " + loaded.getVersion() + ".");
+
+		return loaded.getVersion();
+	}
+
+	/**
+	 * Applies a delta to the recommender resident knowledge base. Loads all
+	 * the products instead if the recommender does not have the base version.
+	 * 
+	 * @param recommenderUrl Recommender URL.
+	 * @param baseVersion Recommender knowledge base version of the snapshot.
+	 * @param delta Agent manager product delta.
+	 * @param products Products with the delta applied.
+	 * 
+	 * @return New recommender knowledge base version.
+	 */
+	private long applyDelta(String recommenderUrl, long baseVersion, ProductDelta delta, List<Product> products)
+	{
+		log.info("Applying delta to recommender knowledge base version " + baseVersion + ".");
+
+		try {
+			KnowledgeBaseVersion updated = this.restTemplate.patchForObject(
+				recommenderUrl + RECOMMENDER_KNOWLEDGE_BASE_PATH,
+				new KnowledgeBaseDelta(baseVersion, delta.getProducts(), delta.getRemoved()),
+				KnowledgeBaseVersion.class
+			);
+
+			log.info("Recommender knowledge base version is " + updated.getVersion() + ".");
+
+			return updated.getVersion();
+		} catch (HttpClientErrorException.Conflict e) {
+			log.info("Recommender knowledge base version " + baseVersion + " is not resident.");
+
+			return this.load(recommenderUrl, products);
+		}
+	}
+
+	/**
+	 * Applies an agent manager product delta to a product list, the same way
+	 * the recommender applies it to its knowledge base: updated products keep
+	 * their position, added products are appended, and products without
+	 * provider unique URL are skipped.
+	 * 
+	 * @param products Products.
+	 * @param delta Agent manager product delta.
+	 * 
+	 * @return Products with the delta applied.
+	 */
+	private static List<Product> merge(List<Product> products, ProductDelta delta)
+	{
+		Map<String, Product> pending = new LinkedHashMap<String, Product>();
+
+		for (Product product : delta.getProducts()) {
+			if (product.getProviderUniqueUrl() != null) {
+				pending.put(product.getProviderUniqueUrl(), product);
+			}
+		}
+
+		Set<String> removed = new HashSet<String>(delta.getRemoved());
+		Set<String> replaced = new HashSet<String>();
+		List<Product> merged = new ArrayList<Product>(products.size() + delta.getProducts().size());
+
+		for (Product product : products) {
+			String url = product.getProviderUniqueUrl();
+
+			if (url != null && removed.contains(url)) {
+				continue;
+			}
+
+			if (url != null && pending.containsKey(url)) {
+				if (replaced.add(url)) {
+					merged.add(pending.get(url));
+				}
+			} else {
+				merged.add(product);
+			}
+		}
+
+		for (Map.Entry<String, Product> entry : pending.entrySet()) {
+			if (!replaced.contains(entry.getKey())) {
+				merged.add(entry.getValue());
+			}
+		}
+
+		return merged;
+	}
+
+	/**
+	 * Checks if the snapshot is the recommender resident knowledge base.
+	 * 
+	 * @param recommenderUrl Recommender URL.
+	 * @param current Snapshot.
+	 * 
+	 * @return True if it is the resident knowledge base.
+	 */
+	private boolean isResident(String recommenderUrl, CatalogueSnapshot current)
+	{
+		KnowledgeBaseVersion resident = this.restTemplate.getForObject(
+			recommenderUrl + RECOMMENDER_KNOWLEDGE_BASE_PATH,
+			KnowledgeBaseVersion.class
+		);
+
+		return resident != null && resident.getVersion() == current.getKnowledgeBaseVersion();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.cbers.ennvas.orchestrator.domain;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.cbers.ennvas.orchestrator.domain.resource.Product;
+
+import lombok.Getter;
+
+/**
+ * Local copy of the agent manager product data, and the version of the
+ * recommender resident knowledge base loaded with it.
+ * 
+ * Immutable: a refresh publishes a new snapshot. Products are also indexed
+ * by their unique identifier, to identify the recommender results.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@Getter
+public class CatalogueSnapshot
+{
+
+	/**
+	 * Products.
+	 */
+	private final List<Product> products;
+
+	/**
+	 * Products, by their unique identifier.
+	 */
+	private final ProductIndex index;
+
+	/**
+	 * Agent manager catalogue epoch. 0 if it is unknown.
+	 */
+	private final long catalogueEpoch;
+
+	/**
+	 * Agent manager catalogue version. 0 if it is unknown.
+	 */
+	private final long catalogueVersion;
+
+	/**
+	 * ETag of the agent manager product data. Null if it sent none.
+	 */
+	private final String etag;
+
+	/**
+	 * Recommender resident knowledge base version.
+	 */
+	private final long knowledgeBaseVersion;
+
+	/**
+	 * Time of the last check against the agent manager (in milliseconds).
+	 */
+	private final long checkedAt;
+
+	/**
+	 * Constructs a snapshot.
+	 * 
+	 * @param products Products.
+	 * @param catalogueEpoch Agent manager catalogue epoch.
+	 * @param catalogueVersion Agent manager catalogue version.
+	 * @param etag ETag of the agent manager product data.
+	 * @param knowledgeBaseVersion Recommender resident knowledge base version.
+	 * @param checkedAt Time of the last check against the agent manager.
+	 */
+	public CatalogueSnapshot(List<Product> products, long catalogueEpoch, long catalogueVersion, String etag, long knowledgeBaseVersion, long checkedAt)
+	{
+		this.products = Collections.unmodifiableList(products);
+		this.index = new ProductIndex(products);
+		this.catalogueEpoch = catalogueEpoch;
+		this.catalogueVersion = catalogueVersion;
+		this.etag = etag;
+		this.knowledgeBaseVersion = knowledgeBaseVersion;
+		this.checkedAt = checkedAt;
+	}
+
+	/**
+	 * Returns the number of products.
+	 * 
+	 * @return Number of products.
+	 */
+	public int size()
+	{
+		return this.products.size();
+	}
+}
\ No newline at end of file
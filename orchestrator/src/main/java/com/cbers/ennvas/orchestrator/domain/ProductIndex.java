@@ -0,0 +1,97 @@
+package com.cbers.ennvas.orchestrator.domain;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.cbers.ennvas.orchestrator.domain.resource.Product;
+
+/**
+ * Indexes products by their unique identifier, or by their provider unique
+ * URL if they have none, so the recommender results can be identified by it
+ * only (see the "orch.search.projection" property).
+ * 
+ * Complete if every product can be identified: otherwise, the results cannot
+ * be identified by their unique identifier or provider unique URL.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+public class ProductIndex
+{
+
+	/**
+	 * Products, by their unique identifier.
+	 */
+	private final Map<Integer, Product> productsById;
+
+	/**
+	 * Products without unique identifier, by their provider unique URL.
+	 */
+	private final Map<String, Product> productsByUrl;
+
+	private final boolean complete;
+
+	/**
+	 * Indexes products.
+	 * 
+	 * @param products Products.
+	 */
+	public ProductIndex(List<Product> products)
+	{
+		boolean complete = true;
+
+		this.productsById = new HashMap<Integer, Product>(products.size() * 4 / 3 + 1);
+		this.productsByUrl = new HashMap<String, Product>();
+
+		for (Product product : products) {
+			Integer id = product.getProductId();
+			String url = product.getProviderUniqueUrl();
+
+			if (id != null) {
+				if (this.productsById.put(id, product) != null) {
+					complete = false;
+				}
+			} else if (url == null || this.productsByUrl.put(url, product) != null) {
+				complete = false;
+			}
+		}
+
+		this.complete = complete;
+	}
+
+	/**
+	 * Returns whether every product can be identified by its unique
+	 * identifier or provider unique URL.
+	 * 
+	 * @return True if the index is complete.
+	 */
+	public boolean isComplete()
+	{
+		return this.complete;
+	}
+
+	/**
+	 * Returns the product with a unique identifier or, if it is null, with a
+	 * provider unique URL.
+	 * 
+	 * @param productId Unique identifier.
+	 * @param providerUniqueUrl Provider unique URL.
+	 * 
+	 * @return Product, or null if there is none.
+	 */
+	public Product get(Integer productId, String providerUniqueUrl)
+	{
+		if (productId != null) {
+			return this.productsById.get(productId);
+		}
+
+		return this.productsByUrl.get(providerUniqueUrl);
+	}
+}
\ No newline at end of file
@@ -22,6 +22,11 @@ import lombok.NoArgsConstructor;
 public class Product
 {
 
+	/**
+	 * Unique identifier, given by the agent manager. Null if it is unknown.
+	 */
+	private Integer productId;
+
 	/**
 	 * Name.
 	 */
@@ -81,6 +86,7 @@ public class Product
 	public String toString()
 	{
 		return "Product: [ " +
+		"productId: " + this.productId + ", " +
 		"name: " + this.name + ", " +
 		"type: " + this.type + ", " +
 		"brand: " + this.brand + ", " +
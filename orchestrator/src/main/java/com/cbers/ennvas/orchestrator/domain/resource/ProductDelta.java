@@ -0,0 +1,61 @@
+package com.cbers.ennvas.orchestrator.domain.resource;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wraps the agent manager response with the products added, updated or
+ * removed after a catalogue version.
+ * 
+ * Products are identified by their provider unique URL.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductDelta
+{
+
+	/**
+	 * Catalogue epoch: versions of different epochs are not comparable.
+	 */
+	private long epoch;
+
+	/**
+	 * Current catalogue version.
+	 */
+	private long version;
+
+	/**
+	 * Catalogue version the delta was computed against.
+	 */
+	private long since;
+
+	/**
+	 * True if the products are all the products, instead of a delta.
+	 */
+	private boolean full;
+
+	/**
+	 * Added or updated products.
+	 */
+	private List<Product> products;
+
+	/**
+	 * Provider unique URLs of the removed products.
+	 */
+	private List<String> removed;
+}
\ No newline at end of file
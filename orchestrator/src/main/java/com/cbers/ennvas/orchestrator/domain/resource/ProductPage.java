@@ -0,0 +1,48 @@
+package com.cbers.ennvas.orchestrator.domain.resource;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wraps the agent manager response with a page of products.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPage
+{
+
+	/**
+	 * Catalogue epoch.
+	 */
+	private long epoch;
+
+	/**
+	 * Catalogue version when the page was read.
+	 */
+	private long version;
+
+	/**
+	 * Products.
+	 */
+	private List<Product> products;
+
+	/**
+	 * Cursor of the next page. Null if this is the last page.
+	 */
+	private String next;
+}
\ No newline at end of file
@@ -1,25 +1,45 @@
 package com.cbers.ennvas.orchestrator.rest.controller;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import com.cbers.ennvas.orchestrator.application.service.CatalogueService;
+import com.cbers.ennvas.orchestrator.domain.CatalogueSnapshot;
+import com.cbers.ennvas.orchestrator.domain.ProductIndex;
 import com.cbers.ennvas.orchestrator.domain.resource.Product;
 import com.cbers.ennvas.orchestrator.domain.resource.ProductList;
 import com.cbers.ennvas.orchestrator.domain.resource.Query;
+import com.cbers.ennvas.orchestrator.rest.data.HttpPoolStats;
+import com.cbers.ennvas.orchestrator.rest.data.KnowledgeBaseVersion;
+import com.cbers.ennvas.orchestrator.rest.data.RcmQueryRequest;
 import com.cbers.ennvas.orchestrator.rest.data.RcmRequest;
+import com.cbers.ennvas.orchestrator.rest.data.ScoredProduct;
+import com.cbers.ennvas.orchestrator.rest.data.ScoredProductList;
 
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * Controls HTTP requests to the REST API.
  * 
+ * Blocking: each search holds a server thread until it is responded. Used
+ * unless the reactive mode is selected (see ReactiveOrchRestController).
+ * 
  * @author Juan Francisco Carrión Molina
  * @author Raquel Pérez González de Ossuna
  * @author Olga Posada Iglesias
@@ -31,20 +51,58 @@ import org.springframework.web.client.RestTemplate;
 
 @RestController
 @RequestMapping("/ennvas/orch/rest")
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class OrchRestController
 {
 
 	@Autowired
 	private ApplicationArguments applicationArguments;
 
-    private static final String AGENT_MANAGER_PATH = "/ennvas/agm/rest/retrieve";
-    private static final String RECOMMENDER_PATH = "/ennvas/rcm/rest/process";
+	@Autowired
+	private CatalogueService catalogueService;
+
+	/**
+	 * Shared REST template, with pooled connections (see HttpClientConfig).
+	 */
+	@Autowired
+	private RestTemplate restTemplate;
+
+	@Autowired
+	private PoolingHttpClientConnectionManager connectionManager;
+
+	/**
+	 * True to send the query phrase to the agent manager, so it only sends
+	 * the products that can match it. Disabled by default, as it is only
+	 * safe with a recommender minimum utility greater than 0.
+	 */
+	@Value("${orch.search.phrase-prefilter:false}")
+	private boolean phrasePrefilter;
+
+	/**
+	 * True to request the recommender results with the "ids" projection, and
+	 * take their product data from the products sent to the recommender.
+	 */
+	@Value("${orch.search.projection:true}")
+	private boolean projection;
+
+    static final String AGENT_MANAGER_FILTER_PATH = "/ennvas/agm/rest/filter"
+        + "?available={available}&freeShipping={freeShipping}&priceMin={priceMin}"
+        + "&priceMax={priceMax}&maxShippingTime={maxShippingTime}&minRating={minRating}"
+        + "&phrase={phrase}";
+    static final String RECOMMENDER_PATH = "/ennvas/rcm/rest/query";
+    static final String RECOMMENDER_PROCESS_PATH = "/ennvas/rcm/rest/process";
+    static final String PROJECTION_IDS = "?projection=ids";
 
     private static final Logger log = LoggerFactory.getLogger(OrchRestController.class);
     
     /**
      * Receives a query with the desired user's search.
      * Returns a list of products that meets the requirements.
+     * 
+     * The query is processed by the recommender against the catalogue
+     * snapshot (see CatalogueService), so the agent manager is not
+     * requested. Until there is a snapshot, the products that meet the query
+     * filters are requested from the agent manager and sent with the query.
      */
     @PostMapping(
         value = "/search",
@@ -53,8 +111,6 @@ public class OrchRestController
     )
     public ProductList search(@RequestBody Query searchRequest)
     {
-        RestTemplate restTemplate = new RestTemplate();
-
 		/*
 		 * Retrieve command line arguments (pre-validated).
 		 */
@@ -64,33 +120,73 @@ public class OrchRestController
         String recommenderUrl = args[1];
 
         /**
-         * Retrieve information from the AgentManager.
+         * Retrieve the catalogue snapshot.
          */
 
-        log.info("Submitting request to agent manager.");
+        CatalogueSnapshot snapshot = catalogueService.getCurrentSnapshot();
 
-        ProductList agmResponse = restTemplate.getForObject(
-            agentManagerUrl + AGENT_MANAGER_PATH,
-            ProductList.class
-        );
+        if (snapshot == null) {
+            return this.searchFiltered(searchRequest, agentManagerUrl, recommenderUrl);
+        }
 
-        log.info("Received response from agent manager.");
+        log.info("Using catalogue snapshot with " + snapshot.size() + " products, recommender knowledge base version " + snapshot.getKnowledgeBaseVersion() + ".");
 
-        List<Product> agmProducts = agmResponse.getProducts();
+        /**
+         * Generate Recommender request and retrieve information from it.
+         * 
+         * If the recommender does not have the snapshot (409 Conflict), load
+         * it again and retry.
+         */
+
+        log.info("Submitting request to recommender.");
+
+        List<Product> rcmProducts;
+
+        try {
+            rcmProducts = this.query(searchRequest, recommenderUrl, snapshot);
+        } catch (HttpClientErrorException.Conflict e) {
+            log.info("Recommender knowledge base version " + snapshot.getKnowledgeBaseVersion() + " is not resident, reloading it.");
 
-        for (Product product : agmProducts) {
+            snapshot = catalogueService.reload(snapshot.getKnowledgeBaseVersion());
+
+            rcmProducts = this.query(searchRequest, recommenderUrl, snapshot);
+        }
+
+        log.info("Received response from recommender.");
+
+        for (Product product : rcmProducts) {
             log.info(product.toString());
         }
 
-        /**
-         * Generate Recommender request and retrieve information from it.
-         */
+        return new ProductList(rcmProducts);
+    }
 
-        log.info("Creating request for recommender.");
+    /**
+     * Requests the recommender to process a query against its resident
+     * knowledge base, which has the catalogue snapshot products.
+     * 
+     * With the "ids" projection, the result product data is taken from the
+     * snapshot, instead of being sent back by the recommender.
+     * 
+     * @param searchRequest Query.
+     * @param recommenderUrl Recommender URL.
+     * @param snapshot Catalogue snapshot.
+     * 
+     * @return Result products.
+     */
+    private List<Product> query(Query searchRequest, String recommenderUrl, CatalogueSnapshot snapshot)
+    {
+        RcmQueryRequest rcmRequest = new RcmQueryRequest(searchRequest, snapshot.getKnowledgeBaseVersion());
 
-        RcmRequest rcmRequest = new RcmRequest(searchRequest, agmResponse.getProducts());
+        if (projection && snapshot.getIndex().isComplete()) {
+            ScoredProductList rcmResponse = restTemplate.postForObject(
+                recommenderUrl + RECOMMENDER_PATH + PROJECTION_IDS,
+                rcmRequest,
+                ScoredProductList.class
+            );
 
-        log.info("Submitting request to recommender.");
+            return rehydrate(rcmResponse.getProducts(), snapshot.getIndex());
+        }
 
         ProductList rcmResponse = restTemplate.postForObject(
             recommenderUrl + RECOMMENDER_PATH,
@@ -98,14 +194,178 @@ public class OrchRestController
             ProductList.class
         );
 
+        return rcmResponse.getProducts();
+    }
+
+    /**
+     * Processes a query without the catalogue snapshot: requests the products
+     * that meet the query filters from the agent manager, which evaluates
+     * them in its data base, and sends them with the query to the
+     * recommender.
+     * 
+     * Products that do not meet the filters are not sent, as the recommender
+     * excludes them (unless its minimum utility is -1 or lower). If the
+     * phrase prefilter is enabled, products that cannot match the query
+     * phrase are not sent either, as their utility is 0.
+     * 
+     * @param searchRequest Query.
+     * @param agentManagerUrl Agent manager URL.
+     * @param recommenderUrl Recommender URL.
+     * 
+     * @return Recommender result.
+     */
+    private ProductList searchFiltered(Query searchRequest, String agentManagerUrl, String recommenderUrl)
+    {
+        log.info("No catalogue snapshot yet, submitting filtered request to agent manager.");
+
+        ProductList agmResponse = restTemplate.getForObject(
+            agentManagerUrl + AGENT_MANAGER_FILTER_PATH,
+            ProductList.class,
+            searchRequest.isAvailable(),
+            searchRequest.isFreeShipping(),
+            searchRequest.getPriceMin(),
+            searchRequest.getPriceMax(),
+            searchRequest.getMaxShippingTime(),
+            searchRequest.getMinRating(),
+            phrasePrefilter ? searchRequest.getPhrase() : null
+        );
+
+        log.info("Received " + agmResponse.getProducts().size() + " products from agent manager.");
+
+        log.info("Submitting request to recommender.");
+
+        RcmRequest rcmRequest = new RcmRequest(searchRequest, agmResponse.getProducts());
+        ProductIndex index = projection ? new ProductIndex(agmResponse.getProducts()) : null;
+
+        if (index != null && index.isComplete()) {
+            ScoredProductList rcmResponse = restTemplate.postForObject(
+                recommenderUrl + RECOMMENDER_PROCESS_PATH + PROJECTION_IDS,
+                rcmRequest,
+                ScoredProductList.class
+            );
+
+            log.info("Received response from recommender.");
+
+            return new ProductList(rehydrate(rcmResponse.getProducts(), index));
+        }
+
+        ProductList rcmResponse = restTemplate.postForObject(
+            recommenderUrl + RECOMMENDER_PROCESS_PATH,
+            rcmRequest,
+            ProductList.class
+        );
+
         log.info("Received response from recommender.");
 
-        List<Product> rcmProducts = rcmResponse.getProducts();
+        return new ProductList(rcmResponse.getProducts());
+    }
 
-        for (Product product : rcmProducts) {
-            log.info(product.toString());
+    /**
+     * Takes the data of the recommender result products, responded with the
+     * "ids" projection, from the products sent to it. Products that are not
+     * found are left out.
+     * 
+     * @param scoredProducts Result products, identified by their unique
+     * identifier or provider unique URL.
+     * @param index Products sent to the recommender.
+     * 
+     * @return Result products.
+     */
+    static List<Product> rehydrate(List<ScoredProduct> scoredProducts, ProductIndex index)
+    {
+        List<Product> products = new ArrayList<>(scoredProducts.size());
+
+        for (ScoredProduct scoredProduct : scoredProducts) {
+            Product product = index.get(scoredProduct.getProductId(), scoredProduct.getProviderUniqueUrl());
+
+            if (product == null) {
+                String key = scoredProduct.getProductId() != null ? scoredProduct.getProductId().toString() : scoredProduct.getProviderUniqueUrl();
+
+                log.warn("Result product " + key + " is not known, leaving it out.");
+            } else {
+                products.add(product);
+            }
         }
 
-        return new ProductList(rcmProducts);
+        return products;
+    }
+
+    /**
+     * Returns the catalogue snapshot version and size.
+     * 
+     * @return Catalogue snapshot recommender knowledge base version and size.
+     */
+    @GetMapping(
+        value = "/catalogue",
+        produces = "application/json"
+    )
+    public KnowledgeBaseVersion getCatalogue()
+    {
+        CatalogueSnapshot snapshot = catalogueService.getSnapshot();
+
+        return new KnowledgeBaseVersion(snapshot.getKnowledgeBaseVersion(), snapshot.size());
+    }
+
+    /**
+     * Refreshes the catalogue snapshot, for example when the agent manager
+     * product data changes, without waiting for the scheduled refresh.
+     * 
+     * @return New catalogue snapshot recommender knowledge base version and
+     * size.
+     */
+    @PostMapping(
+        value = "/catalogue/refresh",
+        produces = "application/json"
+    )
+    public KnowledgeBaseVersion refreshCatalogue()
+    {
+        log.info("Received catalogue refresh request.");
+
+        CatalogueSnapshot snapshot = catalogueService.refresh();
+
+        return new KnowledgeBaseVersion(snapshot.getKnowledgeBaseVersion(), snapshot.size());
+    }
+
+    /**
+     * Returns the HTTP client connection pool statistics (connections in use,
+     * idle and waited for), in total and per component.
+     * 
+     * @return HTTP client connection pool statistics.
+     */
+    @GetMapping(
+        value = "/http-pool",
+        produces = "application/json"
+    )
+    public HttpPoolStats getHttpPool()
+    {
+        return httpPoolStats(connectionManager);
+    }
+
+    /**
+     * Reads the statistics of an HTTP client connection pool.
+     * 
+     * @param connectionManager HTTP client connection pool.
+     * 
+     * @return HTTP client connection pool statistics.
+     */
+    static HttpPoolStats httpPoolStats(PoolingHttpClientConnectionManager connectionManager)
+    {
+        List<HttpPoolStats.Route> routes = new ArrayList<>();
+
+        for (HttpRoute route : connectionManager.getRoutes()) {
+            PoolStats stats = connectionManager.getStats(route);
+
+            routes.add(new HttpPoolStats.Route(
+                route.getTargetHost().toURI(),
+                stats.getLeased(),
+                stats.getPending(),
+                stats.getAvailable(),
+                stats.getMax()
+            ));
+        }
+
+        PoolStats total = connectionManager.getTotalStats();
+
+        return new HttpPoolStats(total.getLeased(), total.getPending(), total.getAvailable(), total.getMax(), routes);
     }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.cbers.ennvas.orchestrator.rest.controller;
+
+import com.cbers.ennvas.orchestrator.application.service.CatalogueService;
+import com.cbers.ennvas.orchestrator.domain.CatalogueSnapshot;
+import com.cbers.ennvas.orchestrator.domain.ProductIndex;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductList;
+import com.cbers.ennvas.orchestrator.domain.resource.Query;
+import com.cbers.ennvas.orchestrator.rest.data.HttpPoolStats;
+import com.cbers.ennvas.orchestrator.rest.data.KnowledgeBaseVersion;
+import com.cbers.ennvas.orchestrator.rest.data.RcmQueryRequest;
+import com.cbers.ennvas.orchestrator.rest.data.RcmRequest;
+import com.cbers.ennvas.orchestrator.rest.data.ScoredProductList;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Controls HTTP requests to the REST API, in reactive mode.
+ * 
+ * Non-blocking: searches do not hold a thread while they wait for the
+ * recommender or the agent manager, so many of them can be in flight on a
+ * few threads. If the client disconnects, its search is cancelled, and so
+ * are its requests in progress. Selected with
+ * "spring.main.web-application-type=reactive" (see application.properties).
+ * 
+ * Same API as OrchRestController. Catalogue snapshot operations, which may
+ * block, run on the bounded elastic scheduler.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@RestController
+@RequestMapping("/ennvas/orch/rest")
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveOrchRestController
+{
+
+	private static final Logger log = LoggerFactory.getLogger(ReactiveOrchRestController.class);
+
+	/**
+	 * Smile media type.
+	 */
+	private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+	@Autowired
+	private ApplicationArguments applicationArguments;
+
+	@Autowired
+	private CatalogueService catalogueService;
+
+	/**
+	 * Non-blocking web client (see HttpClientConfig).
+	 */
+	@Autowired
+	private WebClient webClient;
+
+	@Autowired
+	private PoolingHttpClientConnectionManager connectionManager;
+
+	/**
+	 * True to send the query phrase to the agent manager, so it only sends
+	 * the products that can match it. Disabled by default, as it is only
+	 * safe with a recommender minimum utility greater than 0.
+	 */
+	@Value("${orch.search.phrase-prefilter:false}")
+	private boolean phrasePrefilter;
+
+	/**
+	 * True to request the recommender results with the "ids" projection, and
+	 * take their product data from the products sent to the recommender.
+	 */
+	@Value("${orch.search.projection:true}")
+	private boolean projection;
+
+	/**
+	 * True to send and accept Smile (binary JSON) instead of JSON.
+	 */
+	@Value("${orch.http.smile:false}")
+	private boolean smile;
+
+	/**
+	 * Receives a query with the desired user's search.
+	 * Returns a list of products that meets the requirements.
+	 * 
+	 * The query is processed by the recommender against the catalogue
+	 * snapshot, as in OrchRestController.search.
+	 * 
+	 * @param searchRequest Query.
+	 * 
+	 * @return Recommender result, once received.
+	 */
+	@PostMapping(
+		value = "/search",
+		consumes = "application/json",
+		produces = "application/json"
+	)
+	public Mono<ProductList> search(@RequestBody Query searchRequest)
+	{
+		/*
+		 * Retrieve command line arguments (pre-validated).
+		 */
+
+		String[] args = applicationArguments.getSourceArgs();
+		String agentManagerUrl = args[0];
+		String recommenderUrl = args[1];
+
+		/*
+		 * Retrieve the catalogue snapshot.
+		 */
+
+		CatalogueSnapshot snapshot = catalogueService.getCurrentSnapshot();
+
+		Mono<ProductList> rcmResponse;
+
+		if (snapshot == null) {
+			rcmResponse = this.searchFiltered(searchRequest, agentManagerUrl, recommenderUrl);
+		} else {
+			/*
+			 * If the recommender does not have the snapshot (409 Conflict),
+			 * load it again and retry.
+			 */
+
+			long knowledgeBaseVersion = snapshot.getKnowledgeBaseVersion();
+
+			rcmResponse = this.query(searchRequest, recommenderUrl, snapshot)
+				.onErrorResume(WebClientResponseException.Conflict.class, e -> {
+					log.info("Recommender knowledge base version " + knowledgeBaseVersion + " is not resident, reloading it.");
+
+					return Mono.fromCallable(() -> catalogueService.reload(knowledgeBaseVersion))
+						.subscribeOn(Schedulers.boundedElastic())
+						.flatMap(reloaded -> this.query(searchRequest, recommenderUrl, reloaded));
+				});
+		}
+
+		return rcmResponse
+			.map(response -> new ProductList(response.getProducts()))
+			.doOnCancel(() -> log.info("Search cancelled, as the client disconnected."));
+	}
+
+	/**
+	 * Requests the recommender to process a query against its resident
+	 * knowledge base, which has the catalogue snapshot products. With the
+	 * "ids" projection, the result product data is taken from the snapshot.
+	 * 
+	 * @param searchRequest Query.
+	 * @param recommenderUrl Recommender URL.
+	 * @param snapshot Catalogue snapshot.
+	 * 
+	 * @return Recommender result.
+	 */
+	private Mono<ProductList> query(Query searchRequest, String recommenderUrl, CatalogueSnapshot snapshot)
+	{
+		RcmQueryRequest rcmRequest = new RcmQueryRequest(searchRequest, snapshot.getKnowledgeBaseVersion());
+
+		if (projection && snapshot.getIndex().isComplete()) {
+			return this.post(recommenderUrl + OrchRestController.RECOMMENDER_PATH + OrchRestController.PROJECTION_IDS, rcmRequest)
+				.bodyToMono(ScoredProductList.class)
+				.map(response -> new ProductList(OrchRestController.rehydrate(response.getProducts(), snapshot.getIndex())));
+		}
+
+		return this.post(recommenderUrl + OrchRestController.RECOMMENDER_PATH, rcmRequest)
+			.bodyToMono(ProductList.class);
+	}
+
+	/**
+	 * Processes a query without the catalogue snapshot: requests the products
+	 * that meet the query filters from the agent manager, and sends them with
+	 * the query to the recommender, as in OrchRestController.searchFiltered.
+	 * 
+	 * @param searchRequest Query.
+	 * @param agentManagerUrl Agent manager URL.
+	 * @param recommenderUrl Recommender URL.
+	 * 
+	 * @return Recommender result.
+	 */
+	private Mono<ProductList> searchFiltered(Query searchRequest, String agentManagerUrl, String recommenderUrl)
+	{
+		log.info("No catalogue snapshot yet, submitting filtered request to agent manager.");
+
+		return webClient.get()
+			.uri(
+				agentManagerUrl + OrchRestController.AGENT_MANAGER_FILTER_PATH,
+				searchRequest.isAvailable(),
+				searchRequest.isFreeShipping(),
+				searchRequest.getPriceMin(),
+				searchRequest.getPriceMax(),
+				searchRequest.getMaxShippingTime(),
+				searchRequest.getMinRating(),
+				phrasePrefilter ? searchRequest.getPhrase() : null
+			)
+			.accept(this.wireFormat())
+			.retrieve()
+			.bodyToMono(ProductList.class)
+			.flatMap(agmResponse -> {
+				log.info("Received " + agmResponse.getProducts().size() + " products from agent manager.");
+
+				RcmRequest rcmRequest = new RcmRequest(searchRequest, agmResponse.getProducts());
+				ProductIndex index = projection ? new ProductIndex(agmResponse.getProducts()) : null;
+
+				if (index != null && index.isComplete()) {
+					return this.post(recommenderUrl + OrchRestController.RECOMMENDER_PROCESS_PATH + OrchRestController.PROJECTION_IDS, rcmRequest)
+						.bodyToMono(ScoredProductList.class)
+						.map(response -> new ProductList(OrchRestController.rehydrate(response.getProducts(), index)));
+				}
+
+				return this.post(recommenderUrl + OrchRestController.RECOMMENDER_PROCESS_PATH, rcmRequest)
+					.bodyToMono(ProductList.class);
+			});
+	}
+
+	/**
+	 * Posts a request to the recommender.
+	 * 
+	 * @param url Request URL.
+	 * @param body Request body.
+	 * 
+	 * @return Response specification.
+	 */
+	private WebClient.ResponseSpec post(String url, Object body)
+	{
+		return webClient.post()
+			.uri(url)
+			.contentType(this.wireFormat())
+			.accept(this.wireFormat())
+			.bodyValue(body)
+			.retrieve();
+	}
+
+	/**
+	 * Returns the media type of the requests and responses.
+	 * 
+	 * @return Smile if enabled, or JSON.
+	 */
+	private MediaType wireFormat()
+	{
+		return smile ? APPLICATION_SMILE : MediaType.APPLICATION_JSON;
+	}
+
+	/**
+	 * Returns the catalogue snapshot version and size.
+	 * 
+	 * @return Catalogue snapshot recommender knowledge base version and size.
+	 */
+	@GetMapping(
+		value = "/catalogue",
+		produces = "application/json"
+	)
+	public Mono<KnowledgeBaseVersion> getCatalogue()
+	{
+		return Mono.fromCallable(catalogueService::getSnapshot)
+			.subscribeOn(Schedulers.boundedElastic())
+			.map(snapshot -> new KnowledgeBaseVersion(snapshot.getKnowledgeBaseVersion(), snapshot.size()));
+	}
+
+	/**
+	 * Refreshes the catalogue snapshot, without waiting for the scheduled
+	 * refresh.
+	 * 
+	 * @return New catalogue snapshot recommender knowledge base version and
+	 * size.
+	 */
+	@PostMapping(
+		value = "/catalogue/refresh",
+		produces = "application/json"
+	)
+	public Mono<KnowledgeBaseVersion> refreshCatalogue()
+	{
+		log.info("Received catalogue refresh request.");
+
+		return Mono.fromCallable(catalogueService::refresh)
+			.subscribeOn(Schedulers.boundedElastic())
+			.map(snapshot -> new KnowledgeBaseVersion(snapshot.getKnowledgeBaseVersion(), snapshot.size()));
+	}
+
+	/**
+	 * Returns the HTTP client connection pool statistics. In reactive mode,
+	 * only the catalogue snapshot requests use this pool.
+	 * 
+	 * @return HTTP client connection pool statistics.
+	 */
+	@GetMapping(
+		value = "/http-pool",
+		produces = "application/json"
+	)
+	public HttpPoolStats getHttpPool()
+	{
+		return OrchRestController.httpPoolStats(connectionManager);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.cbers.ennvas.orchestrator.rest.data;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describes the HTTP client connection pool: in total and per route (that
+ * is, per component).
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HttpPoolStats
+{
+
+	/**
+	 * Connections in use.
+	 */
+	private int leased;
+
+	/**
+	 * Requests waiting for a connection.
+	 */
+	private int pending;
+
+	/**
+	 * Idle connections, kept alive.
+	 */
+	private int available;
+
+	/**
+	 * Maximum number of connections.
+	 */
+	private int max;
+
+	/**
+	 * Per route statistics.
+	 */
+	private List<Route> routes;
+
+	@Data
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class Route
+	{
+
+		/**
+		 * Route (scheme://host:port).
+		 */
+		private String route;
+
+		private int leased;
+
+		private int pending;
+
+		private int available;
+
+		private int max;
+	}
+}
\ No newline at end of file
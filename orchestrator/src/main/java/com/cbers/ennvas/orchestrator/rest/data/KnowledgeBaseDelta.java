@@ -0,0 +1,47 @@
+package com.cbers.ennvas.orchestrator.rest.data;
+
+import java.util.List;
+
+import com.cbers.ennvas.orchestrator.domain.resource.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wraps a delta to apply to the recommender resident knowledge base.
+ * 
+ * Products are identified by their provider unique URL.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KnowledgeBaseDelta
+{
+
+	/**
+	 * Version the delta was computed against.
+	 */
+	private long baseVersion;
+
+	/**
+	 * Added or updated products.
+	 */
+	private List<Product> products;
+
+	/**
+	 * Provider unique URLs of the removed products.
+	 */
+	private List<String> removed;
+}
\ No newline at end of file
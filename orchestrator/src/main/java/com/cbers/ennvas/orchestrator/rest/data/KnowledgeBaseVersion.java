@@ -0,0 +1,37 @@
+package com.cbers.ennvas.orchestrator.rest.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describes a knowledge base: the recommender resident one, or the catalogue
+ * snapshot loaded into it.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KnowledgeBaseVersion
+{
+
+	/**
+	 * Version. 0 if no knowledge base has been loaded.
+	 */
+	private long version;
+
+	/**
+	 * Number of products.
+	 */
+	private int size;
+}
\ No newline at end of file
@@ -0,0 +1,361 @@
+package com.cbers.ennvas.orchestrator.application.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.orchestrator.domain.CatalogueSnapshot;
+import com.cbers.ennvas.orchestrator.domain.resource.Product;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductDelta;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductList;
+import com.cbers.ennvas.orchestrator.domain.resource.ProductPage;
+import com.cbers.ennvas.orchestrator.rest.data.KnowledgeBaseDelta;
+import com.cbers.ennvas.orchestrator.rest.data.KnowledgeBaseVersion;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Checks the catalogue snapshot refreshes, with a mocked REST template for
+ * the agent manager and the recommender.
+ * 
+ * The first snapshot has products 1, 2 and 3, read in two pages, and is the
+ * recommender knowledge base version 1.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * @author Melany Daniela Chicaiza Quezada
+ * 
+ * @version 1.0.0
+ */
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogueServiceImplTest
+{
+
+	private static final String DELTA_URL = "http://agm/ennvas/agm/rest/delta?since={since}&epoch={epoch}";
+	private static final String PAGE_URL = "http://agm/ennvas/agm/rest/products?size={size}&cursor={cursor}";
+	private static final String KNOWLEDGE_BASE_URL = "http://rcm/ennvas/rcm/rest/knowledge-base";
+
+	@Mock
+	private RestTemplate restTemplate;
+
+	@InjectMocks
+	private CatalogueServiceImpl catalogueServiceImpl;
+
+	@BeforeEach
+	public void setUp()
+	{
+		ReflectionTestUtils.setField(catalogueServiceImpl, "applicationArguments", new DefaultApplicationArguments("http://agm", "http://rcm"));
+		ReflectionTestUtils.setField(catalogueServiceImpl, "pageSize", 2);
+	}
+
+	@Test
+	public void firstRefreshLoadsAllPages()
+	{
+		CatalogueSnapshot snapshot = this.firstSnapshot();
+
+		assertEquals(Arrays.asList(CatalogueServiceImplTest.product(1), CatalogueServiceImplTest.product(2), CatalogueServiceImplTest.product(3)), snapshot.getProducts());
+		assertEquals(42, snapshot.getCatalogueEpoch());
+		assertEquals(7, snapshot.getCatalogueVersion());
+		assertEquals("W/\"42.7\"", snapshot.getEtag());
+		assertEquals(1, snapshot.getKnowledgeBaseVersion());
+		assertSame(snapshot, catalogueServiceImpl.getSnapshot());
+	}
+
+	@Test
+	public void notModifiedKeepsResidentSnapshot()
+	{
+		CatalogueSnapshot first = this.firstSnapshot();
+
+		when(restTemplate.exchange(eq(DELTA_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(ProductDelta.class), eq(7L), eq(42L)))
+			.thenReturn(new ResponseEntity<ProductDelta>(HttpStatus.NOT_MODIFIED));
+		when(restTemplate.getForObject(KNOWLEDGE_BASE_URL, KnowledgeBaseVersion.class))
+			.thenReturn(new KnowledgeBaseVersion(1, 3))
+			.thenReturn(new KnowledgeBaseVersion(0, 0));
+		when(restTemplate.postForObject(eq(KNOWLEDGE_BASE_URL), any(ProductList.class), eq(KnowledgeBaseVersion.class)))
+			.thenReturn(new KnowledgeBaseVersion(2, 3));
+
+		CatalogueSnapshot second = catalogueServiceImpl.refresh();
+
+		assertEquals(first.getProducts(), second.getProducts());
+		assertEquals(1, second.getKnowledgeBaseVersion());
+
+		ArgumentCaptor<HttpEntity> request = ArgumentCaptor.forClass(HttpEntity.class);
+
+		verify(restTemplate).exchange(eq(DELTA_URL), eq(HttpMethod.GET), request.capture(), eq(ProductDelta.class), eq(7L), eq(42L));
+		assertEquals(Collections.singletonList("W/\"42.7\""), request.getValue().getHeaders().getIfNoneMatch());
+
+		/*
+		 * The recommender lost the knowledge base (restarted): all the
+		 * products are loaded again.
+		 */
+
+		CatalogueSnapshot third = catalogueServiceImpl.refresh();
+
+		assertEquals(2, third.getKnowledgeBaseVersion());
+		assertEquals(first.getProducts(), third.getProducts());
+		verify(restTemplate, times(2)).postForObject(eq(KNOWLEDGE_BASE_URL), any(ProductList.class), eq(KnowledgeBaseVersion.class));
+		verify(restTemplate, never()).patchForObject(any(String.class), any(), eq(KnowledgeBaseVersion.class));
+	}
+
+	@Test
+	public void deltaIsPatchedAndMerged()
+	{
+		this.firstSnapshot();
+		this.stubDelta();
+
+		when(restTemplate.patchForObject(eq(KNOWLEDGE_BASE_URL), any(KnowledgeBaseDelta.class), eq(KnowledgeBaseVersion.class)))
+			.thenReturn(new KnowledgeBaseVersion(2, 3));
+
+		CatalogueSnapshot snapshot = catalogueServiceImpl.refresh();
+
+		/*
+		 * Updated products keep their position, removed ones are left out and
+		 * added ones are appended.
+		 */
+
+		Product updated = CatalogueServiceImplTest.product(2);
+		updated.setPrice(5.0);
+
+		assertEquals(Arrays.asList(CatalogueServiceImplTest.product(1), updated, CatalogueServiceImplTest.product(4)), snapshot.getProducts());
+		assertEquals(8, snapshot.getCatalogueVersion());
+		assertEquals("W/\"42.8\"", snapshot.getEtag());
+		assertEquals(2, snapshot.getKnowledgeBaseVersion());
+
+		ArgumentCaptor<KnowledgeBaseDelta> delta = ArgumentCaptor.forClass(KnowledgeBaseDelta.class);
+
+		verify(restTemplate).patchForObject(eq(KNOWLEDGE_BASE_URL), delta.capture(), eq(KnowledgeBaseVersion.class));
+		assertEquals(1, delta.getValue().getBaseVersion());
+		assertEquals(Arrays.asList(updated, CatalogueServiceImplTest.product(4)), delta.getValue().getProducts());
+		assertEquals(Collections.singletonList(CatalogueServiceImplTest.url(3)), delta.getValue().getRemoved());
+
+		/*
+		 * Result products are rehydrated from the new snapshot.
+		 */
+
+		assertEquals(updated, snapshot.getIndex().get(2, null));
+		assertEquals(CatalogueServiceImplTest.product(4), snapshot.getIndex().get(4, null));
+		assertNull(snapshot.getIndex().get(3, null));
+		assertEquals(true, snapshot.getIndex().isComplete());
+	}
+
+	@Test
+	public void conflictLoadsAllProducts()
+	{
+		this.firstSnapshot();
+		this.stubDelta();
+
+		when(restTemplate.patchForObject(eq(KNOWLEDGE_BASE_URL), any(KnowledgeBaseDelta.class), eq(KnowledgeBaseVersion.class)))
+			.thenThrow(HttpClientErrorException.create(HttpStatus.CONFLICT, "Conflict", new HttpHeaders(), new byte[0], StandardCharsets.UTF_8));
+		when(restTemplate.postForObject(eq(KNOWLEDGE_BASE_URL), any(ProductList.class), eq(KnowledgeBaseVersion.class)))
+			.thenReturn(new KnowledgeBaseVersion(5, 3));
+
+		CatalogueSnapshot snapshot = catalogueServiceImpl.refresh();
+
+		assertEquals(5, snapshot.getKnowledgeBaseVersion());
+
+		ArgumentCaptor<ProductList> loaded = ArgumentCaptor.forClass(ProductList.class);
+
+		verify(restTemplate, times(2)).postForObject(eq(KNOWLEDGE_BASE_URL), loaded.capture(), eq(KnowledgeBaseVersion.class));
+		assertEquals(snapshot.getProducts(), loaded.getValue().getProducts());
+		assertEquals(3, loaded.getValue().getProducts().size());
+	}
+
+	@Test
+	public void concurrentRefreshesShareOneRequest() throws Exception
+	{
+		this.firstSnapshot();
+
+		CountDownLatch requested = new CountDownLatch(1);
+		CountDownLatch respond = new CountDownLatch(1);
+
+		when(restTemplate.exchange(eq(DELTA_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(ProductDelta.class), eq(7L), eq(42L)))
+			.thenAnswer(invocation -> {
+				requested.countDown();
+				respond.await(10, TimeUnit.SECONDS);
+				return CatalogueServiceImplTest.delta(8, Collections.singletonList(CatalogueServiceImplTest.product(4)), Collections.<String>emptyList());
+			});
+		when(restTemplate.patchForObject(eq(KNOWLEDGE_BASE_URL), any(KnowledgeBaseDelta.class), eq(KnowledgeBaseVersion.class)))
+			.thenReturn(new KnowledgeBaseVersion(2, 4));
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<CatalogueSnapshot>> refreshes = new ArrayList<Future<CatalogueSnapshot>>();
+
+			refreshes.add(executor.submit(catalogueServiceImpl::refresh));
+			requested.await(10, TimeUnit.SECONDS);
+
+			List<Thread> waiting = new ArrayList<Thread>();
+
+			for (int i = 1; i < 8; i++) {
+				refreshes.add(executor.submit(() -> {
+					synchronized (waiting) {
+						waiting.add(Thread.currentThread());
+					}
+
+					return catalogueServiceImpl.refresh();
+				}));
+			}
+
+			/*
+			 * Respond once every other refresh waits for the one in progress.
+			 */
+
+			long deadline = System.currentTimeMillis() + 10000;
+
+			while (System.currentTimeMillis() < deadline && !CatalogueServiceImplTest.allWaiting(waiting, 7)) {
+				Thread.sleep(10);
+			}
+
+			respond.countDown();
+
+			CatalogueSnapshot snapshot = refreshes.get(0).get(10, TimeUnit.SECONDS);
+
+			for (Future<CatalogueSnapshot> refresh : refreshes) {
+				assertSame(snapshot, refresh.get(10, TimeUnit.SECONDS));
+			}
+
+			assertEquals(4, snapshot.size());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		verify(restTemplate, times(1)).exchange(eq(DELTA_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(ProductDelta.class), eq(7L), eq(42L));
+		verify(restTemplate, times(1)).patchForObject(eq(KNOWLEDGE_BASE_URL), any(KnowledgeBaseDelta.class), eq(KnowledgeBaseVersion.class));
+	}
+
+	/**
+	 * Refreshes the first snapshot: products 1 and 2 in the first page, and 3
+	 * in the second one, loaded into the recommender as version 1.
+	 * 
+	 * @return First snapshot.
+	 */
+	private CatalogueSnapshot firstSnapshot()
+	{
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("W/\"42.7\"");
+
+		when(restTemplate.getForEntity(PAGE_URL, ProductPage.class, 2, ""))
+			.thenReturn(new ResponseEntity<ProductPage>(new ProductPage(42, 7, Arrays.asList(CatalogueServiceImplTest.product(1), CatalogueServiceImplTest.product(2)), "Mg"), headers, HttpStatus.OK));
+		when(restTemplate.getForEntity(PAGE_URL, ProductPage.class, 2, "Mg"))
+			.thenReturn(new ResponseEntity<ProductPage>(new ProductPage(42, 8, Arrays.asList(CatalogueServiceImplTest.product(3)), null), HttpStatus.OK));
+		when(restTemplate.postForObject(eq(KNOWLEDGE_BASE_URL), any(ProductList.class), eq(KnowledgeBaseVersion.class)))
+			.thenReturn(new KnowledgeBaseVersion(1, 3));
+
+		return catalogueServiceImpl.getSnapshot();
+	}
+
+	/**
+	 * Stubs the agent manager delta since the first snapshot: product 2
+	 * updated, product 3 removed and product 4 added.
+	 */
+	private void stubDelta()
+	{
+		Product updated = CatalogueServiceImplTest.product(2);
+		updated.setPrice(5.0);
+
+		when(restTemplate.exchange(eq(DELTA_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(ProductDelta.class), eq(7L), eq(42L)))
+			.thenReturn(CatalogueServiceImplTest.delta(8, Arrays.asList(updated, CatalogueServiceImplTest.product(4)), Collections.singletonList(CatalogueServiceImplTest.url(3))));
+	}
+
+	/**
+	 * Creates an agent manager delta response of epoch 42 since version 7.
+	 * 
+	 * @param version Catalogue version.
+	 * @param products Added or updated products.
+	 * @param removed Provider unique URLs of the removed products.
+	 * 
+	 * @return Delta response.
+	 */
+	private static ResponseEntity<ProductDelta> delta(long version, List<Product> products, List<String> removed)
+	{
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag("W/\"42." + version + "\"");
+
+		return new ResponseEntity<ProductDelta>(new ProductDelta(42, version, 7, false, products, removed), headers, HttpStatus.OK);
+	}
+
+	/**
+	 * Checks if the refreshes are waiting for the one in progress.
+	 * 
+	 * @param threads Threads of the refreshes.
+	 * @param count Number of refreshes.
+	 * 
+	 * @return True if every refresh is waiting.
+	 */
+	private static boolean allWaiting(List<Thread> threads, int count)
+	{
+		synchronized (threads) {
+			if (threads.size() < count) {
+				return false;
+			}
+
+			for (Thread thread : threads) {
+				if (thread.getState() != Thread.State.WAITING) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+
+	/**
+	 * Creates a test product.
+	 * 
+	 * @param productId Unique identifier.
+	 * 
+	 * @return Product.
+	 */
+	private static Product product(int productId)
+	{
+		return new Product(productId, "Product " + productId, "test", "Brand", 10.0, 1, 4.0, 0.0, 1, "Test product.", "Store", CatalogueServiceImplTest.url(productId));
+	}
+
+	/**
+	 * Returns the provider unique URL of a test product.
+	 * 
+	 * @param productId Unique identifier.
+	 * 
+	 * @return Provider unique URL.
+	 */
+	private static String url(int productId)
+	{
+		return "https://example.com/" + productId;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,220 @@
+package com.cbers.ennvas.recommender.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+/**
+ * Generates synthetic, reproducible catalogues and queries for the
+ * benchmarks.
+ * 
+ * Text is built from Spanish product vocabulary, with diacritics, similar to
+ * the demo data. The same seed always generates the same products and
+ * queries.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class CatalogueGenerator
+{
+
+	/**
+	 * Seed used by the benchmarks.
+	 */
+	public static final long DEFAULT_SEED = 20200601L;
+
+	private static final String[] TYPES = {
+		"smartphone", "portátil", "tableta", "auriculares", "televisor",
+		"cafetera", "aspiradora", "batidora", "microondas", "reloj",
+		"cámara", "altavoz", "impresora", "teclado", "ratón",
+		"monitor", "zapatillas", "mochila", "lámpara", "freidora"
+	};
+
+	private static final String[] BRANDS = {
+		"Apple", "Samsung", "Xiaomi", "Huawei", "Sony",
+		"LG", "Lenovo", "Asus", "Philips", "Bosch",
+		"Cecotec", "Taurus", "Logitech", "Canon", "HP",
+		"Nike", "Adidas", "Energizer", "Orbegozo", "Rowenta"
+	};
+
+	private static final String[] ADJECTIVES = {
+		"inalámbrico", "eléctrico", "automático", "ergonómico", "compacto",
+		"económico", "pequeño", "rápido", "térmico", "portátil",
+		"resistente", "silencioso", "ligero", "básico", "profesional"
+	};
+
+	private static final String[] COLOURS = {
+		"Negro", "Blanco", "Gris", "Azul", "Rojo",
+		"Verde", "Plata", "Dorado", "Rosa", "Marrón"
+	};
+
+	private static final String[] DESCRIPTION_WORDS = {
+		"pantalla", "batería", "cámara", "diseño", "función",
+		"conexión", "protección", "resolución", "tamaño", "teléfono",
+		"música", "vídeo", "carga", "duración", "potencia",
+		"garantía", "año", "años", "niños", "hogar",
+		"también", "más", "fácil", "limpieza", "cancelación",
+		"ruido", "pulgadas", "minutos", "metros", "agua",
+		"polvo", "acero", "inoxidable", "capacidad", "litros",
+		"velocidad", "memoria", "almacenamiento", "sonido", "imagen",
+		"de", "para", "con", "sin", "el",
+		"la", "los", "las", "y", "en"
+	};
+
+	private final Random random;
+
+	/**
+	 * Constructs a generator.
+	 * 
+	 * @param seed Random seed.
+	 */
+	public CatalogueGenerator(long seed)
+	{
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Generates a catalogue.
+	 * 
+	 * @param size Number of products.
+	 * 
+	 * @return Products.
+	 */
+	public List<Product> products(int size)
+	{
+		List<Product> products = new ArrayList<>(size);
+
+		for (int i = 0; i < size; i++) {
+			products.add(this.product(i));
+		}
+
+		return products;
+	}
+
+	/**
+	 * Generates a product.
+	 * 
+	 * @param i Product number, used as unique identifier and to make the URL
+	 * unique.
+	 * 
+	 * @return Product.
+	 */
+	public Product product(int i)
+	{
+		String type = this.pick(TYPES);
+		String brand = this.pick(BRANDS);
+
+		String name = brand + " " + capitalize(type) + " " + this.pick(ADJECTIVES) +
+			" " + (char) ('A' + this.random.nextInt(26)) + this.random.nextInt(100) +
+			" - en " + this.pick(COLOURS);
+
+		StringBuilder description = new StringBuilder();
+		int descriptionWords = 20 + this.random.nextInt(40);
+
+		for (int j = 0; j < descriptionWords; j++) {
+			if (j > 0) {
+				description.append(' ');
+			}
+
+			description.append(this.random.nextInt(8) == 0
+				? this.pick(ADJECTIVES)
+				: this.pick(DESCRIPTION_WORDS));
+		}
+
+		boolean freeShipping = this.random.nextInt(3) == 0;
+
+		return new Product(
+			i,
+			name,
+			type,
+			brand,
+			Math.round((5.0 + this.random.nextDouble() * 995.0) * 100.0) / 100.0,
+			this.random.nextInt(10) == 0 ? 0 : this.random.nextInt(1000),
+			Math.round(this.random.nextDouble() * 50.0) / 10.0,
+			freeShipping ? 0.0 : Math.round(this.random.nextDouble() * 1000.0) / 100.0,
+			1 + this.random.nextInt(30),
+			description.toString(),
+			"Amazon",
+			"https://www.amazon.es/dp/B" + String.format("%09d", i),
+			0.0
+		);
+	}
+
+	/**
+	 * Generates a query.
+	 * 
+	 * The first word is a brand or a type, so that the query selects a part
+	 * of the catalogue, and the rest come from names and descriptions.
+	 * 
+	 * @param wordCount Number of words of the phrase.
+	 * @param filtered Whether to set the query filters.
+	 * 
+	 * @return Query.
+	 */
+	public Query query(int wordCount, boolean filtered)
+	{
+		StringBuilder phrase = new StringBuilder();
+
+		for (int j = 0; j < wordCount; j++) {
+			if (j > 0) {
+				phrase.append(' ');
+			}
+
+			if (j == 0) {
+				phrase.append(this.random.nextBoolean() ? this.pick(BRANDS) : this.pick(TYPES));
+			} else {
+				phrase.append(this.random.nextBoolean() ? this.pick(ADJECTIVES) : this.pick(DESCRIPTION_WORDS));
+			}
+		}
+
+		Query query = new Query();
+		query.setPhrase(phrase.toString());
+
+		if (filtered) {
+			query.setAvailable(true);
+			query.setPriceMax(500.0);
+			query.setMaxShippingTime(15);
+			query.setMinRating(2.5);
+		}
+
+		return query;
+	}
+
+	/**
+	 * Generates queries.
+	 * 
+	 * @param count Number of queries.
+	 * @param wordCount Number of words of each phrase.
+	 * @param filtered Whether to set the query filters.
+	 * 
+	 * @return Queries.
+	 */
+	public Query[] queries(int count, int wordCount, boolean filtered)
+	{
+		Query[] queries = new Query[count];
+
+		for (int i = 0; i < count; i++) {
+			queries[i] = this.query(wordCount, filtered);
+		}
+
+		return queries;
+	}
+
+	private String pick(String[] words)
+	{
+		return words[this.random.nextInt(words.length)];
+	}
+
+	private static String capitalize(String word)
+	{
+		return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+	}
+}
\ No newline at end of file
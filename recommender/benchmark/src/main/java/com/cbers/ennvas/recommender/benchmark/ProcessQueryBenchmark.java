@@ -0,0 +1,149 @@
+package com.cbers.ennvas.recommender.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.recommender.domain.KnowledgeBase;
+import com.cbers.ennvas.recommender.domain.MainAlgorithm;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks MainAlgorithm#processQuery against resident knowledge bases of
+ * growing size.
+ * 
+ * - latency: single query latency, one thread.
+ * - throughput: queries per second with concurrent requests sharing the
+ * algorithm and the knowledge base, as in the REST controller.
+ * 
+ * Allocation rate is measured by running with the GC profiler
+ * ("-prof gc").
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+public class ProcessQueryBenchmark
+{
+
+	private static final int QUERY_COUNT = 256;
+
+	/**
+	 * Number of products of the knowledge base.
+	 */
+	@Param({ "1000", "10000", "100000", "1000000" })
+	private int size;
+
+	/**
+	 * Number of words of the query phrases.
+	 */
+	@Param({ "3" })
+	private int wordCount;
+
+	/**
+	 * Whether the queries set the filters.
+	 */
+	@Param({ "true" })
+	private boolean filtered;
+
+	/**
+	 * Minimum utility (first command line argument of the recommender).
+	 */
+	@Param({ "1" })
+	private int minimumUtility;
+
+	/**
+	 * Number of results (second command line argument of the recommender).
+	 */
+	@Param({ "6" })
+	private int firstXElements;
+
+	/**
+	 * Scoring parallelism (third command line argument of the recommender).
+	 */
+	@Param({ "1" })
+	private int parallelism;
+
+	private KnowledgeBase knowledgeBase;
+
+	private Query[] queries;
+
+	private ForkJoinPool scoringPool;
+
+	private MainAlgorithm mainAlgorithm;
+
+	/**
+	 * Cursor over the queries, per benchmark thread.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor
+	{
+
+		private int next;
+
+		private Query next(Query[] queries)
+		{
+			this.next = (this.next + 1) % queries.length;
+
+			return queries[this.next];
+		}
+	}
+
+	@Setup
+	public void setup()
+	{
+		CatalogueGenerator generator = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED);
+		List<Product> products = generator.products(this.size);
+
+		this.knowledgeBase = new KnowledgeBase(products, 1);
+		this.queries = generator.queries(QUERY_COUNT, this.wordCount, this.filtered);
+		this.scoringPool = new ForkJoinPool(this.parallelism);
+		this.mainAlgorithm = new MainAlgorithm(this.minimumUtility, this.firstXElements, this.scoringPool);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		this.scoringPool.shutdown();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public List<Product> latency(Cursor cursor)
+	{
+		return this.mainAlgorithm.processQuery(this.knowledgeBase, cursor.next(this.queries));
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	@Threads(Threads.MAX)
+	public List<Product> throughput(Cursor cursor)
+	{
+		return this.mainAlgorithm.processQuery(this.knowledgeBase, cursor.next(this.queries));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.cbers.ennvas.recommender.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.recommender.domain.KnowledgeBase;
+import com.cbers.ennvas.recommender.domain.MainAlgorithm;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks how MainAlgorithm#processQuery latency scales with the number
+ * of words of the query phrase, on a fixed size knowledge base.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class QueryWordCountBenchmark
+{
+
+	private static final int QUERY_COUNT = 256;
+
+	/**
+	 * Number of products of the knowledge base.
+	 */
+	@Param({ "100000" })
+	private int size;
+
+	/**
+	 * Number of words of the query phrases.
+	 */
+	@Param({ "1", "2", "4", "8", "16", "32" })
+	private int wordCount;
+
+	private KnowledgeBase knowledgeBase;
+
+	private Query[] queries;
+
+	private MainAlgorithm mainAlgorithm;
+
+	private int next;
+
+	@Setup
+	public void setup()
+	{
+		CatalogueGenerator generator = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED);
+		List<Product> products = generator.products(this.size);
+
+		this.knowledgeBase = new KnowledgeBase(products, 1);
+		this.queries = generator.queries(QUERY_COUNT, this.wordCount, false);
+		this.mainAlgorithm = new MainAlgorithm(1, 6, null);
+	}
+
+	@Benchmark
+	public List<Product> processQuery()
+	{
+		this.next = (this.next + 1) % QUERY_COUNT;
+
+		return this.mainAlgorithm.processQuery(this.knowledgeBase, this.queries[this.next]);
+	}
+}
\ No newline at end of file
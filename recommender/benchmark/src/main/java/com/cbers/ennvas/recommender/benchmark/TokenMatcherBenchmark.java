@@ -0,0 +1,116 @@
+package com.cbers.ennvas.recommender.benchmark;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.recommender.domain.ProductText;
+import com.cbers.ennvas.recommender.domain.TokenMatcher;
+import com.cbers.ennvas.recommender.domain.UtilityFunction;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares searching the distinct query tokens in a normalized product
+ * description with one String#contains per token and with a TokenMatcher,
+ * by number of tokens.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenMatcherBenchmark
+{
+
+	private static final int CATALOGUE_SIZE = 1024;
+
+	/**
+	 * Number of distinct tokens.
+	 */
+	@Param({ "1", "4", "8", "16", "32", "64" })
+	private int tokenCount;
+
+	private String[] descriptions;
+
+	private String[] tokens;
+
+	private TokenMatcher matcher;
+
+	private int next;
+
+	@Setup
+	public void setup()
+	{
+		CatalogueGenerator generator = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED);
+		List<Product> products = generator.products(CATALOGUE_SIZE);
+
+		this.descriptions = new String[CATALOGUE_SIZE];
+
+		for (int i = 0; i < CATALOGUE_SIZE; i++) {
+			this.descriptions[i] = new ProductText(products.get(i)).getDescription();
+		}
+
+		Set<String> tokens = new LinkedHashSet<String>();
+
+		while (tokens.size() < this.tokenCount) {
+			for (String token : UtilityFunction.tokenize(generator.query(8, false).getPhrase())) {
+				if (tokens.size() < this.tokenCount) {
+					tokens.add(token);
+				}
+			}
+		}
+
+		this.tokens = tokens.toArray(new String[0]);
+		this.matcher = new TokenMatcher(this.tokens);
+	}
+
+	private String nextDescription()
+	{
+		this.next = (this.next + 1) & (CATALOGUE_SIZE - 1);
+
+		return this.descriptions[this.next];
+	}
+
+	@Benchmark
+	public long contains()
+	{
+		String description = this.nextDescription();
+		long found = 0;
+
+		for (int i = 0; i < this.tokens.length; i++) {
+			if (description.contains(this.tokens[i])) {
+				found |= 1L << i;
+			}
+		}
+
+		return found;
+	}
+
+	@Benchmark
+	public long matcher()
+	{
+		return this.matcher.match(this.nextDescription());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,114 @@
+package com.cbers.ennvas.recommender.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.recommender.domain.CompiledQuery;
+import com.cbers.ennvas.recommender.domain.ProductText;
+import com.cbers.ennvas.recommender.domain.UtilityFunction;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the per-product utility function: diacritics removal and
+ * utility calculation of a product against a query, either compiling the
+ * query for each product or once (see CompiledQuery).
+ * 
+ * Each invocation processes the next product of a small synthetic catalogue,
+ * so that the results are not tied to a single text.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilityFunctionBenchmark
+{
+
+	private static final int CATALOGUE_SIZE = 1024;
+
+	/**
+	 * Number of words of the query phrase.
+	 */
+	@Param({ "3" })
+	private int wordCount;
+
+	private List<Product> products;
+
+	private ProductText[] texts;
+
+	private Query query;
+
+	private CompiledQuery compiledQuery;
+
+	private int next;
+
+	@Setup
+	public void setup()
+	{
+		CatalogueGenerator generator = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED);
+
+		this.products = generator.products(CATALOGUE_SIZE);
+		this.texts = new ProductText[CATALOGUE_SIZE];
+		this.query = generator.query(this.wordCount, true);
+		this.compiledQuery = new CompiledQuery(this.query);
+
+		for (int i = 0; i < CATALOGUE_SIZE; i++) {
+			this.texts[i] = new ProductText(this.products.get(i));
+		}
+	}
+
+	private Product nextProduct()
+	{
+		this.next = (this.next + 1) & (CATALOGUE_SIZE - 1);
+
+		return this.products.get(this.next);
+	}
+
+	@Benchmark
+	public String strToAsciiName()
+	{
+		return UtilityFunction.strToAscii(this.nextProduct().getName());
+	}
+
+	@Benchmark
+	public String strToAsciiDescription()
+	{
+		return UtilityFunction.strToAscii(this.nextProduct().getDescription());
+	}
+
+	@Benchmark
+	public double calculate()
+	{
+		return UtilityFunction.calculate(this.nextProduct(), this.query);
+	}
+
+	@Benchmark
+	public double calculateCompiled()
+	{
+		Product product = this.nextProduct();
+
+		return UtilityFunction.calculate(product, this.texts[this.next], this.compiledQuery);
+	}
+}
\ No newline at end of file
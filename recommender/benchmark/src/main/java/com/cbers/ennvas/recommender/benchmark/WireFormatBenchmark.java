@@ -0,0 +1,112 @@
+package com.cbers.ennvas.recommender.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.recommender.domain.resource.ProductList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the wire formats of the product data transfers between
+ * components (e. g. the knowledge base sent to the recommender): JSON and
+ * Smile (binary JSON).
+ * 
+ * - encode: writing a catalogue.
+ * - decode: reading a catalogue.
+ * 
+ * The payload size of each format is reported as the payloadBytes secondary
+ * result (see WireFormatBenchmark.Payload).
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WireFormatBenchmark
+{
+
+	/**
+	 * Number of products of the catalogue.
+	 */
+	@Param({ "10000", "100000" })
+	private int size;
+
+	/**
+	 * Wire format: "json" or "smile".
+	 */
+	@Param({ "json", "smile" })
+	private String format;
+
+	private ObjectMapper objectMapper;
+
+	private ProductList productList;
+
+	private byte[] payload;
+
+	/**
+	 * Payload size of the catalogue in the benchmark format, reported with
+	 * the results of each benchmark. JMH resets the counters after the setup,
+	 * so it is set by the benchmarks (a single store per operation).
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Payload
+	{
+
+		/**
+		 * Payload size (in bytes).
+		 */
+		public long payloadBytes;
+	}
+
+	@Setup
+	public void setup() throws IOException
+	{
+		CatalogueGenerator generator = new CatalogueGenerator(CatalogueGenerator.DEFAULT_SEED);
+
+		this.objectMapper = this.format.equals("smile") ? new ObjectMapper(new SmileFactory()) : new ObjectMapper();
+		this.productList = new ProductList(generator.products(this.size));
+		this.payload = this.objectMapper.writeValueAsBytes(this.productList);
+	}
+
+	@Benchmark
+	public byte[] encode(Payload payload) throws IOException
+	{
+		byte[] encoded = this.objectMapper.writeValueAsBytes(this.productList);
+
+		payload.payloadBytes = encoded.length;
+
+		return encoded;
+	}
+
+	@Benchmark
+	public ProductList decode(Payload payload) throws IOException
+	{
+		payload.payloadBytes = this.payload.length;
+
+		return this.objectMapper.readValue(this.payload, ProductList.class);
+	}
+}
\ No newline at end of file
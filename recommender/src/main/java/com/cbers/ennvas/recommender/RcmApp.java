@@ -24,8 +24,8 @@ public class RcmApp
 		 * Validate command line arguments.
 		 */
 
-		if (args.length != 2) {
-			throw new IllegalArgumentException("Two arguments are required.");
+		if (args.length != 2 && args.length != 3) {
+			throw new IllegalArgumentException("Two or three arguments are required.");
 		}
 
 		try {
@@ -40,6 +40,16 @@ public class RcmApp
 			throw new IllegalArgumentException("Second argument (first x elements) is expected to be an integer.");
 		}
 
+		if (args.length == 3) {
+			try {
+				if (Integer.parseInt(args[2]) < 1) {
+					throw new NumberFormatException();
+				}
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Third argument (scoring parallelism) is expected to be a positive integer.");
+			}
+		}
+
 		/*
 		 * Run the Spring application.
 		 */
@@ -0,0 +1,67 @@
+package com.cbers.ennvas.recommender;
+
+import java.util.concurrent.ForkJoinPool;
+
+import com.cbers.ennvas.recommender.domain.MainAlgorithm;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Recommender component configuration.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Configuration
+public class RcmConfig
+{
+
+	/**
+	 * Default scoring parallelism (sequential scoring).
+	 */
+	public static final int DEFAULT_PARALLELISM = 1;
+
+	/**
+	 * Creates the pool used for parallel scoring, with the parallelism given
+	 * by the third command line argument (pre-validated).
+	 * 
+	 * @param applicationArguments Command line arguments.
+	 * 
+	 * @return Scoring pool.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ForkJoinPool scoringPool(ApplicationArguments applicationArguments)
+	{
+		String[] args = applicationArguments.getSourceArgs();
+		int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PARALLELISM;
+
+		return new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Creates the algorithm shared by all the requests, with the minimum
+	 * utility and first x elements given by the first and second command line
+	 * arguments (pre-validated).
+	 * 
+	 * @param applicationArguments Command line arguments.
+	 * @param scoringPool Pool for parallel scoring.
+	 * 
+	 * @return Shared algorithm.
+	 */
+	@Bean
+	public MainAlgorithm mainAlgorithm(ApplicationArguments applicationArguments, ForkJoinPool scoringPool)
+	{
+		String[] args = applicationArguments.getSourceArgs();
+		int minimumUtility = Integer.parseInt(args[0]);
+		int firstXElements = Integer.parseInt(args[1]);
+
+		return new MainAlgorithm(minimumUtility, firstXElements, scoringPool);
+	}
+}
\ No newline at end of file
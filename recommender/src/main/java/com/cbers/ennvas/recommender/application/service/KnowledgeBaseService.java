@@ -0,0 +1,63 @@
+package com.cbers.ennvas.recommender.application.service;
+
+import java.util.List;
+
+import com.cbers.ennvas.recommender.domain.KnowledgeBase;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+/**
+ * Resident knowledge base service interface.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public interface KnowledgeBaseService
+{
+
+	/**
+	 * Replaces the resident knowledge base.
+	 * 
+	 * @param products Knowledge base products.
+	 * 
+	 * @return New resident knowledge base.
+	 */
+	KnowledgeBase load(List<Product> products);
+
+	/**
+	 * Applies a delta to the resident knowledge base.
+	 * 
+	 * @param baseVersion Version the delta was computed against.
+	 * @param upserts Added or updated products.
+	 * @param removed Provider unique URLs of the removed products.
+	 * 
+	 * @return New resident knowledge base.
+	 * 
+	 * @throws KnowledgeBaseVersionException If the base version is not the
+	 * resident one.
+	 */
+	KnowledgeBase update(long baseVersion, List<Product> upserts, List<String> removed);
+
+	/**
+	 * Returns the resident knowledge base, or null if none has been loaded.
+	 * 
+	 * @return Resident knowledge base.
+	 */
+	KnowledgeBase getKnowledgeBase();
+
+	/**
+	 * Returns the resident knowledge base if it has the requested version.
+	 * 
+	 * @param version Requested version.
+	 * 
+	 * @return Resident knowledge base.
+	 * 
+	 * @throws KnowledgeBaseVersionException If the requested version is not
+	 * the resident one.
+	 */
+	KnowledgeBase getKnowledgeBase(long version);
+}
\ No newline at end of file
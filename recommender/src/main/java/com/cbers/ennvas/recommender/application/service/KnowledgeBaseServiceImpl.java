@@ -0,0 +1,131 @@
+package com.cbers.ennvas.recommender.application.service;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.cbers.ennvas.recommender.domain.KnowledgeBase;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Resident knowledge base service interface implementation.
+ * 
+ * Readers get an immutable knowledge base without locking. Writers are
+ * serialized, and every load or delta publishes a new version.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Service
+public class KnowledgeBaseServiceImpl implements KnowledgeBaseService
+{
+
+	private static final Logger log = LoggerFactory.getLogger(KnowledgeBaseServiceImpl.class);
+
+	/**
+	 * Resident knowledge base.
+	 */
+	private volatile KnowledgeBase knowledgeBase;
+
+	/**
+	 * Last published version. Versions start from the time the service was
+	 * created (in milliseconds), not from 0, so versions of a previous run are
+	 * not reused after a restart, and clients that still refer to them get a
+	 * conflict instead of another knowledge base.
+	 */
+	private long lastVersion = System.currentTimeMillis();
+
+	/**
+	 * Replaces the resident knowledge base.
+	 * 
+	 * @param products Knowledge base products.
+	 * 
+	 * @return New resident knowledge base.
+	 */
+	@Override
+	public synchronized KnowledgeBase load(List<Product> products)
+	{
+		KnowledgeBase next = new KnowledgeBase(products, ++this.lastVersion);
+
+		this.knowledgeBase = next;
+
+		log.info("Loaded knowledge base version " + next.getVersion() + " with " + next.size() + " products.");
+
+		return next;
+	}
+
+	/**
+	 * Applies a delta to the resident knowledge base. Added or updated
+	 * products without provider unique URL are skipped (see
+	 * KnowledgeBase#update).
+	 * 
+	 * @param baseVersion Version the delta was computed against.
+	 * @param upserts Added or updated products.
+	 * @param removed Provider unique URLs of the removed products.
+	 * 
+	 * @return New resident knowledge base.
+	 */
+	@Override
+	public synchronized KnowledgeBase update(long baseVersion, List<Product> upserts, List<String> removed)
+	{
+		KnowledgeBase current = this.getKnowledgeBase(baseVersion);
+
+		if (upserts != null) {
+			long unkeyed = upserts.stream().filter(product -> product.getProviderUniqueUrl() == null).count();
+
+			if (unkeyed > 0) {
+				log.warn("Skipped " + unkeyed + " added or updated products without provider unique URL.");
+			}
+		}
+
+		KnowledgeBase next = current.update(
+			upserts == null ? Collections.<Product>emptyList() : upserts,
+			removed == null ? Collections.<String>emptyList() : removed,
+			++this.lastVersion
+		);
+
+		this.knowledgeBase = next;
+
+		log.info("Updated knowledge base from version " + baseVersion + " to version " + next.getVersion() + " with " + next.size() + " products.");
+
+		return next;
+	}
+
+	/**
+	 * Returns the resident knowledge base, or null if none has been loaded.
+	 * 
+	 * @return Resident knowledge base.
+	 */
+	@Override
+	public KnowledgeBase getKnowledgeBase()
+	{
+		return this.knowledgeBase;
+	}
+
+	/**
+	 * Returns the resident knowledge base if it has the requested version.
+	 * 
+	 * @param version Requested version.
+	 * 
+	 * @return Resident knowledge base.
+	 */
+	@Override
+	public KnowledgeBase getKnowledgeBase(long version)
+	{
+		KnowledgeBase current = this.knowledgeBase;
+
+		if (current == null || current.getVersion() != version) {
+			throw new KnowledgeBaseVersionException(version, current == null ? 0 : current.getVersion());
+		}
+
+		return current;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.cbers.ennvas.recommender.application.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a request refers to a knowledge base version that is not the
+ * resident one. Responded as 409 Conflict, so the client can reload the
+ * knowledge base and retry.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class KnowledgeBaseVersionException extends RuntimeException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs the exception.
+	 * 
+	 * @param requestedVersion Requested version.
+	 * @param residentVersion Resident version (0 if none).
+	 */
+	public KnowledgeBaseVersionException(long requestedVersion, long residentVersion)
+	{
+		super("Knowledge base version " + requestedVersion + " requested, but resident version is " + residentVersion + ".");
+	}
+}
\ No newline at end of file
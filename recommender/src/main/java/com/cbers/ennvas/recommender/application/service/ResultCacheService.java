@@ -0,0 +1,101 @@
+package com.cbers.ennvas.recommender.application.service;
+
+import java.util.List;
+
+import com.cbers.ennvas.recommender.domain.CompiledQuery;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+/**
+ * Query result cache service interface.
+ * 
+ * Results are cached by resident knowledge base version and canonical query
+ * (see CompiledQuery#canonicalKey), so they are not reused once the
+ * knowledge base changes.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public interface ResultCacheService
+{
+
+	/**
+	 * Returns the cached results of a query.
+	 * 
+	 * @param version Knowledge base version.
+	 * @param query Compiled query.
+	 * 
+	 * @return Cached results, or null if there are none.
+	 */
+	List<Product> get(long version, CompiledQuery query);
+
+	/**
+	 * Caches the results of a query.
+	 * 
+	 * @param version Knowledge base version the results were computed
+	 * against.
+	 * @param query Compiled query.
+	 * @param results Results.
+	 */
+	void put(long version, CompiledQuery query, List<Product> results);
+
+	/**
+	 * Removes all the cached results.
+	 */
+	void clear();
+
+	/**
+	 * Returns the number of cached results.
+	 * 
+	 * @return Number of cached results.
+	 */
+	int getSize();
+
+	/**
+	 * Returns the maximum number of cached results. 0 if the cache is
+	 * disabled.
+	 * 
+	 * @return Maximum number of cached results.
+	 */
+	int getMaxSize();
+
+	/**
+	 * Returns the number of queries whose results were cached.
+	 * 
+	 * @return Number of hits.
+	 */
+	long getHits();
+
+	/**
+	 * Returns the number of queries whose results were not cached.
+	 * 
+	 * @return Number of misses.
+	 */
+	long getMisses();
+
+	/**
+	 * Returns the number of results removed to keep the maximum size.
+	 * 
+	 * @return Number of evictions.
+	 */
+	long getEvictions();
+
+	/**
+	 * Returns the number of results removed because of their age.
+	 * 
+	 * @return Number of expirations.
+	 */
+	long getExpirations();
+
+	/**
+	 * Returns the number of results removed because the cache was cleared,
+	 * as the knowledge base changed.
+	 * 
+	 * @return Number of invalidations.
+	 */
+	long getInvalidations();
+}
\ No newline at end of file
@@ -0,0 +1,253 @@
+package com.cbers.ennvas.recommender.application.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.cbers.ennvas.recommender.domain.CompiledQuery;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Query result cache service interface implementation.
+ * 
+ * Least recently used results are evicted when the maximum size is reached,
+ * and results expire after the time to live. All the results are dropped as
+ * soon as a newer knowledge base version is seen.
+ * 
+ * Queries are processed out of the cache lock, so concurrent misses of the
+ * same query may process it more than once.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Service
+public class ResultCacheServiceImpl implements ResultCacheService
+{
+
+	private static final Logger log = LoggerFactory.getLogger(ResultCacheServiceImpl.class);
+
+	/**
+	 * Maximum number of cached results. 0 if the cache is disabled.
+	 */
+	private final int maxSize;
+
+	/**
+	 * Time to live of the cached results (in nanoseconds). 0 if they do not
+	 * expire.
+	 */
+	private final long timeToLive;
+
+	/**
+	 * Cached results by canonical query, in access order.
+	 */
+	private final LinkedHashMap<String, CachedResults> entries;
+
+	/**
+	 * Knowledge base version of the cached results.
+	 */
+	private long version = 0;
+
+	private long hits = 0;
+
+	private long misses = 0;
+
+	private long evictions = 0;
+
+	private long expirations = 0;
+
+	private long invalidations = 0;
+
+	/**
+	 * Results of a query and their expiration time.
+	 */
+	private static class CachedResults
+	{
+
+		private final List<Product> results;
+
+		private final long expiresAt;
+
+		CachedResults(List<Product> results, long expiresAt)
+		{
+			this.results = results;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * Constructs the cache.
+	 * 
+	 * @param maxSize Maximum number of cached results (0 to disable the
+	 * cache).
+	 * @param timeToLive Time to live of the cached results (in seconds, 0 for
+	 * no expiration).
+	 */
+	public ResultCacheServiceImpl(
+		@Value("${rcm.result-cache.max-size:1000}") int maxSize,
+		@Value("${rcm.result-cache.time-to-live:300}") long timeToLive
+	)
+	{
+		this.maxSize = Math.max(0, maxSize);
+		this.timeToLive = TimeUnit.SECONDS.toNanos(Math.max(0, timeToLive));
+
+		this.entries = new LinkedHashMap<String, CachedResults>(16, 0.75f, true)
+		{
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResults> eldest)
+			{
+				if (this.size() > ResultCacheServiceImpl.this.maxSize) {
+					ResultCacheServiceImpl.this.evictions++;
+
+					return true;
+				}
+
+				return false;
+			}
+		};
+
+		log.info("Result cache maximum size is " + this.maxSize + " and time to live is " + timeToLive + " seconds.");
+	}
+
+	/**
+	 * Returns the cached results of a query.
+	 * 
+	 * @param version Knowledge base version.
+	 * @param query Compiled query.
+	 * 
+	 * @return Cached results, or null if there are none.
+	 */
+	@Override
+	public synchronized List<Product> get(long version, CompiledQuery query)
+	{
+		this.advance(version);
+
+		if (this.maxSize == 0 || version != this.version) {
+			this.misses++;
+
+			return null;
+		}
+
+		String key = query.canonicalKey();
+		CachedResults cached = this.entries.get(key);
+
+		if (cached != null && this.timeToLive > 0 && System.nanoTime() - cached.expiresAt > 0) {
+			this.entries.remove(key);
+			this.expirations++;
+			cached = null;
+		}
+
+		if (cached == null) {
+			this.misses++;
+
+			return null;
+		}
+
+		this.hits++;
+
+		return cached.results;
+	}
+
+	/**
+	 * Caches the results of a query. Results of older knowledge base versions
+	 * are not cached.
+	 * 
+	 * @param version Knowledge base version the results were computed
+	 * against.
+	 * @param query Compiled query.
+	 * @param results Results.
+	 */
+	@Override
+	public synchronized void put(long version, CompiledQuery query, List<Product> results)
+	{
+		this.advance(version);
+
+		if (this.maxSize == 0 || version != this.version) {
+			return;
+		}
+
+		this.entries.put(
+			query.canonicalKey(),
+			new CachedResults(Collections.unmodifiableList(results), System.nanoTime() + this.timeToLive)
+		);
+	}
+
+	/**
+	 * Removes all the cached results.
+	 */
+	@Override
+	public synchronized void clear()
+	{
+		this.invalidations += this.entries.size();
+		this.entries.clear();
+	}
+
+	@Override
+	public synchronized int getSize()
+	{
+		return this.entries.size();
+	}
+
+	@Override
+	public int getMaxSize()
+	{
+		return this.maxSize;
+	}
+
+	@Override
+	public synchronized long getHits()
+	{
+		return this.hits;
+	}
+
+	@Override
+	public synchronized long getMisses()
+	{
+		return this.misses;
+	}
+
+	@Override
+	public synchronized long getEvictions()
+	{
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized long getExpirations()
+	{
+		return this.expirations;
+	}
+
+	@Override
+	public synchronized long getInvalidations()
+	{
+		return this.invalidations;
+	}
+
+	/**
+	 * Drops the cached results if a newer knowledge base version is seen.
+	 * 
+	 * @param version Knowledge base version.
+	 */
+	private void advance(long version)
+	{
+		if (version > this.version) {
+			this.clear();
+			this.version = version;
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.cbers.ennvas.recommender.domain;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+import lombok.Getter;
+
+/**
+ * Query prepared once per request for scoring many products: its phrase is
+ * sanitized, split and normalized (see UtilityFunction#tokenize), and the
+ * repeated words are merged.
+ * 
+ * A word repeated n times in the phrase is kept once with a weight of n, so
+ * it is searched once per product and still adds n to the utility.
+ * 
+ * Long queries are searched with a TokenMatcher, which scans each product
+ * attribute once for all the tokens. Short ones are faster to search with
+ * String#contains, one token at a time, as it scans many characters at once
+ * (see TokenMatcherBenchmark in the benchmark module).
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Getter
+public class CompiledQuery
+{
+
+	/**
+	 * Minimum number of distinct tokens searched with a TokenMatcher.
+	 */
+	private static final int MATCHER_MIN_TOKENS = 12;
+
+	/**
+	 * Source query, whose filters are evaluated as they are.
+	 */
+	private final Query query;
+
+	/**
+	 * Distinct normalized words, in order of first appearance.
+	 */
+	private final String[] tokens;
+
+	/**
+	 * Number of appearances of each token in the phrase.
+	 */
+	private final int[] weights;
+
+	/**
+	 * Automaton that searches all the tokens at once. Null if there are less
+	 * than MATCHER_MIN_TOKENS tokens, or if they are not supported (see
+	 * TokenMatcher#supports).
+	 */
+	private final TokenMatcher matcher;
+
+	/**
+	 * Compiles a query.
+	 * 
+	 * @param query Query to compile.
+	 */
+	public CompiledQuery(Query query)
+	{
+		this.query = query;
+
+		Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+
+		for (String word : UtilityFunction.tokenize(query.getPhrase())) {
+			counts.merge(word, 1, Integer::sum);
+		}
+
+		this.tokens = new String[counts.size()];
+		this.weights = new int[counts.size()];
+
+		int i = 0;
+
+		for (Map.Entry<String, Integer> count : counts.entrySet()) {
+			this.tokens[i] = count.getKey();
+			this.weights[i] = count.getValue();
+			i++;
+		}
+
+		if (this.tokens.length >= MATCHER_MIN_TOKENS && TokenMatcher.supports(this.tokens)) {
+			this.matcher = new TokenMatcher(this.tokens);
+		} else {
+			this.matcher = null;
+		}
+	}
+
+	/**
+	 * Returns a key that is equal for queries with the same results: the
+	 * tokens with their weights, in alphabetical order, and the filters that
+	 * are evaluated (ignored filters are taken as 0).
+	 * 
+	 * @return Canonical key.
+	 */
+	public String canonicalKey()
+	{
+		String[] weighted = new String[this.tokens.length];
+
+		for (int i = 0; i < this.tokens.length; i++) {
+			weighted[i] = this.tokens[i] + "*" + this.weights[i];
+		}
+
+		Arrays.sort(weighted);
+
+		StringBuilder key = new StringBuilder();
+
+		for (String token : weighted) {
+			key.append(token).append(' ');
+		}
+
+		key.append('|').append(this.query.isAvailable());
+		key.append('|').append(this.query.isFreeShipping());
+		key.append('|').append(this.query.getPriceMin() > 0.0 ? this.query.getPriceMin() : 0.0);
+		key.append('|').append(this.query.getPriceMax() > 0.0 ? this.query.getPriceMax() : 0.0);
+		key.append('|').append(this.query.getMaxShippingTime() > 0 ? this.query.getMaxShippingTime() : 0);
+		key.append('|').append(this.query.getMinRating() > 0 ? this.query.getMinRating() : 0.0);
+
+		return key.toString();
+	}
+}
\ No newline at end of file
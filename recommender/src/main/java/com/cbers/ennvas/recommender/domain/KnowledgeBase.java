@@ -0,0 +1,271 @@
+package com.cbers.ennvas.recommender.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+/**
+ * Knowledge base of the recommender.
+ * 
+ * Holds the products and their normalized text attributes. Both lists are
+ * indexed by the same product ordinal, which is also used by the n-gram
+ * index and the columnar store of numeric attributes.
+ * 
+ * A knowledge base is immutable once built: updates build a new knowledge
+ * base with a new version, reusing the normalized text attributes of the
+ * products that did not change.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class KnowledgeBase
+{
+
+	/**
+	 * Version. 0 for knowledge bases that are not resident.
+	 */
+	private final long version;
+
+	/**
+	 * Products.
+	 */
+	private final List<Product> products;
+
+	/**
+	 * Normalized text attributes of the products.
+	 */
+	private final List<ProductText> texts;
+
+	/**
+	 * N-gram index of the normalized text attributes.
+	 */
+	private final NGramIndex index;
+
+	/**
+	 * Columnar store of the numeric attributes used by the query filters.
+	 */
+	private final ProductColumns columns;
+
+	/**
+	 * Constructs a knowledge base from a list of products.
+	 * 
+	 * @param products Source products.
+	 */
+	public KnowledgeBase(List<Product> products)
+	{
+		this(products, 0);
+	}
+
+	/**
+	 * Constructs a versioned knowledge base from a list of products.
+	 * 
+	 * @param products Source products.
+	 * @param version Version.
+	 */
+	public KnowledgeBase(List<Product> products, long version)
+	{
+		this.version = version;
+		this.products = new ArrayList<Product>(products.size());
+		this.texts = new ArrayList<ProductText>(products.size());
+
+		for (Product product : products) {
+			this.products.add(new Product(product));
+			this.texts.add(new ProductText(product));
+		}
+
+		this.index = new NGramIndex(this);
+		this.columns = new ProductColumns(this.products);
+	}
+
+	/**
+	 * Builds a knowledge base over a list of products without copying them.
+	 * The caller must not modify the products afterwards.
+	 * 
+	 * @param products Source products.
+	 * 
+	 * @return Knowledge base.
+	 */
+	public static KnowledgeBase wrap(List<Product> products)
+	{
+		List<Product> ownProducts = new ArrayList<Product>(products);
+		List<ProductText> texts = new ArrayList<ProductText>(products.size());
+
+		for (Product product : ownProducts) {
+			texts.add(new ProductText(product));
+		}
+
+		return new KnowledgeBase(ownProducts, texts, 0);
+	}
+
+	/**
+	 * Constructs a versioned knowledge base from already copied products and
+	 * their normalized text attributes.
+	 * 
+	 * @param products Products.
+	 * @param texts Normalized text attributes.
+	 * @param version Version.
+	 */
+	private KnowledgeBase(List<Product> products, List<ProductText> texts, long version)
+	{
+		this.version = version;
+		this.products = products;
+		this.texts = texts;
+		this.index = new NGramIndex(this);
+		this.columns = new ProductColumns(this.products);
+	}
+
+	/**
+	 * Builds the next version of the knowledge base from a delta.
+	 * 
+	 * Products are identified by their provider unique URL. Updated products
+	 * keep their position and added products are appended, so the ordinal
+	 * order (used to break utility ties) stays stable. Upserts without
+	 * provider unique URL cannot be matched with a product, so they are
+	 * skipped instead of being added again with every delta.
+	 * 
+	 * @param upserts Added or updated products.
+	 * @param removed Provider unique URLs of the removed products.
+	 * @param version New version.
+	 * 
+	 * @return Updated knowledge base.
+	 */
+	public KnowledgeBase update(List<Product> upserts, Collection<String> removed, long version)
+	{
+		Map<String, Product> pending = new LinkedHashMap<String, Product>();
+
+		for (Product product : upserts) {
+			if (product.getProviderUniqueUrl() != null) {
+				pending.put(product.getProviderUniqueUrl(), product);
+			}
+		}
+
+		Set<String> removedUrls = new HashSet<String>(removed);
+		List<Product> nextProducts = new ArrayList<Product>(this.products.size() + upserts.size());
+		List<ProductText> nextTexts = new ArrayList<ProductText>(this.products.size() + upserts.size());
+
+		for (int i = 0; i < this.products.size(); i++) {
+			Product product = this.products.get(i);
+			String url = product.getProviderUniqueUrl();
+
+			if (url != null && removedUrls.contains(url)) {
+				continue;
+			}
+
+			if (url != null && pending.containsKey(url)) {
+				Product updated = pending.remove(url);
+
+				if (updated == null) {
+					/*
+					 * Already replaced through a duplicate URL.
+					 */
+
+					continue;
+				}
+
+				nextProducts.add(new Product(updated));
+				nextTexts.add(new ProductText(updated));
+
+				pending.put(url, null);
+			} else {
+				nextProducts.add(product);
+				nextTexts.add(this.texts.get(i));
+			}
+		}
+
+		for (Product product : pending.values()) {
+			if (product != null) {
+				nextProducts.add(new Product(product));
+				nextTexts.add(new ProductText(product));
+			}
+		}
+
+		return new KnowledgeBase(nextProducts, nextTexts, version);
+	}
+
+	/**
+	 * Returns the version.
+	 * 
+	 * @return Version.
+	 */
+	public long getVersion()
+	{
+		return this.version;
+	}
+
+	/**
+	 * Returns the number of products.
+	 * 
+	 * @return Number of products.
+	 */
+	public int size()
+	{
+		return this.products.size();
+	}
+
+	/**
+	 * Returns the product with the given ordinal.
+	 * 
+	 * @param ordinal Product ordinal.
+	 * 
+	 * @return Product.
+	 */
+	public Product getProduct(int ordinal)
+	{
+		return this.products.get(ordinal);
+	}
+
+	/**
+	 * Returns the normalized text attributes of the product with the given
+	 * ordinal.
+	 * 
+	 * @param ordinal Product ordinal.
+	 * 
+	 * @return Normalized text attributes.
+	 */
+	public ProductText getText(int ordinal)
+	{
+		return this.texts.get(ordinal);
+	}
+
+	/**
+	 * Returns the n-gram index of the normalized text attributes.
+	 * 
+	 * @return N-gram index.
+	 */
+	public NGramIndex getIndex()
+	{
+		return this.index;
+	}
+
+	/**
+	 * Returns the columnar store of the numeric attributes.
+	 * 
+	 * @return Columnar store.
+	 */
+	public ProductColumns getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * Returns all the products.
+	 * 
+	 * @return Unmodifiable product list.
+	 */
+	public List<Product> getProducts()
+	{
+		return Collections.unmodifiableList(this.products);
+	}
+}
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.cbers.ennvas.recommender.domain;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import com.cbers.ennvas.recommender.domain.resource.Product;
 import com.cbers.ennvas.recommender.domain.resource.Query;
@@ -10,9 +13,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import lombok.Getter;
-import lombok.Setter;
-
-import java.util.Comparator;
 
 /**
  * Main algorigthm of Ennvas recommender component.
@@ -33,19 +33,53 @@ public class MainAlgorithm
 	/**
 	 * Number of result elements to respond with.
 	 */
-	private int minimumUtility;
+	private final int minimumUtility;
 	
 	/**
 	 * Minimum accepted utility for the results.
 	 */
-	private int firstXElements;
+	private final int firstXElements;
+
+	/**
+	 * Minimum number of products scored by a parallel scoring task.
+	 */
+	private static final int MIN_CHUNK_SIZE = 4096;
+
+	/**
+	 * Parallel scoring tasks per pool thread, to balance uneven chunks.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Per-thread scoring buffers, reused by the requests served by the
+	 * thread.
+	 */
+	private static final ThreadLocal<ScoringBuffers> BUFFERS =
+		ThreadLocal.withInitial(ScoringBuffers::new);
+
+	/**
+	 * Pool for parallel scoring. Sequential scoring if null or if its
+	 * parallelism is 1.
+	 */
+	private final ForkJoinPool scoringPool;
 
 	/**
-	 * Knowledge base.
+	 * Default knowledge base, used by MainAlgorithm#processQuery(Query).
+	 * Null for shared instances.
 	 */
-	@Setter
 	@Getter
-	private List<Product> products;
+	private final KnowledgeBase knowledgeBase;
+
+	/**
+	 * Constructs an algorithm object that can be shared by concurrent
+	 * requests: it holds no knowledge base and no per-request state.
+	 * 
+	 * @param scoringPool Pool for parallel scoring (sequential if null).
+	 */
+	public MainAlgorithm(int minimumUtility, int firstXElements, ForkJoinPool scoringPool)
+	{
+		this(null, minimumUtility, firstXElements, scoringPool);
+	}
 
 	/**
 	 * Constructs an algorithm object with a knowledge base and pre-initializes 
@@ -55,57 +89,147 @@ public class MainAlgorithm
 	 */
 	public MainAlgorithm(List<Product> products, int minimumUtility, int firstXElements)
 	{
-		this.products = new LinkedList<Product>();
+		this(new KnowledgeBase(products), minimumUtility, firstXElements, null);
+	}
+
+	/**
+	 * Constructs an algorithm object with an already built (for example, 
+	 * resident) knowledge base. The knowledge base is not copied.
+	 * 
+	 * @param knowledgeBase Knowledge base.
+	 */
+	public MainAlgorithm(KnowledgeBase knowledgeBase, int minimumUtility, int firstXElements)
+	{
+		this(knowledgeBase, minimumUtility, firstXElements, null);
+	}
+
+	/**
+	 * Constructs an algorithm object with an already built knowledge base and
+	 * a pool for parallel scoring.
+	 * 
+	 * @param knowledgeBase Knowledge base.
+	 * @param scoringPool Pool for parallel scoring (sequential if null).
+	 */
+	public MainAlgorithm(KnowledgeBase knowledgeBase, int minimumUtility, int firstXElements, ForkJoinPool scoringPool)
+	{
+		this.knowledgeBase = knowledgeBase;
 		this.minimumUtility = minimumUtility;
 		this.firstXElements = firstXElements;
+		this.scoringPool = scoringPool;
+	}
 
-		for (Product product : products) {
-			this.products.add(new Product(product));
-		}
+	/**
+	 * Returns the knowledge base products.
+	 * 
+	 * @return Knowledge base products.
+	 */
+	public List<Product> getProducts()
+	{
+		return this.knowledgeBase.getProducts();
 	}
 
 	/**
-	 * Processes a query.
+	 * Processes a query against the default knowledge base.
 	 * 
 	 * @param query Query to process.
 	 * 
 	 * @return Result list.
 	 */
 	public List<Product> processQuery(Query query)
+	{
+		return this.processQuery(this.knowledgeBase, query);
+	}
+
+	/**
+	 * Processes a query against a knowledge base.
+	 * 
+	 * The knowledge base is only read, and utilities are kept in per-request
+	 * buffers, so concurrent requests can share this object and the
+	 * knowledge base without locking.
+	 * 
+	 * @param knowledgeBase Knowledge base.
+	 * @param query Query to process.
+	 * 
+	 * @return Result list.
+	 */
+	public List<Product> processQuery(KnowledgeBase knowledgeBase, Query query)
+	{
+		return this.processQuery(knowledgeBase, new CompiledQuery(query));
+	}
+
+	/**
+	 * Processes a compiled query against a knowledge base.
+	 * 
+	 * @param knowledgeBase Knowledge base.
+	 * @param compiledQuery Compiled query to process.
+	 * 
+	 * @return Result list.
+	 */
+	public List<Product> processQuery(KnowledgeBase knowledgeBase, CompiledQuery compiledQuery)
 	{
 		log.info("Processing query with minimum utility " + this.minimumUtility + " and first x elements " + this.firstXElements + ".");
 
+		Query query = compiledQuery.getQuery();
+		int size = knowledgeBase.size();
+		ScoringBuffers buffers = BUFFERS.get();
+
 		/*
-		 * Pre-calculate all products' utility based on the query.
+		 * Evaluate the query filters over the columnar store. Products that
+		 * are filtered out have a utility of -1.
 		 */
 
-		for (Product rp : this.products) {
-			double utility = UtilityFunction.calculate(rp, query);
-			rp.setUtility(utility);
-		}
+		BitSet eligible = knowledgeBase.getColumns().filter(query, buffers.eligible);
 
 		/*
-		 * Sort the knowledge base products by their utility.
+		 * Select the eligible products to score. Products that do not 
+		 * contain any of the query words have a utility of 0, so if the 
+		 * minimum utility is positive only the candidates given by the n-gram
+		 * index can be part of the result.
 		 */
 
-		this.products.sort(Comparator.comparingDouble(Product:: getUtility).reversed());
-		
+		BitSet candidates;
+
+		if (this.minimumUtility > 0) {
+			candidates = knowledgeBase.getIndex().candidates(compiledQuery.getTokens(), buffers.candidates);
+			candidates.and(eligible);
+		} else {
+			candidates = eligible;
+		}
+
 		/*
-		 * Take the first FIRST_X_ELEMENTS elements, that is, those whose
+		 * Calculate the selected products' utility based on the query, and
+		 * keep the first FIRST_X_ELEMENTS elements, that is, those whose
 		 * utility value is higher.
 		 * 
 		 * We also require a minimum utility value: MINIMUM_UTILITY;
 		 * 
-		 * Simultaneously, we transform selected Product objects
-		 * to ResponseProduct objects.
+		 * Ties keep the knowledge base order, so splitting the products in
+		 * chunks and merging the chunks' best products gives the same result
+		 * as scoring them sequentially.
 		 */
 
-		List<Product> returnValues = new LinkedList<Product>();
-		
-		for (int i = 0; i < this.firstXElements && i < this.products.size(); i++) {
-			if (this.products.get(i).getUtility() >= this.minimumUtility) {
-				returnValues.add(new Product(products.get(i)));
-			}
+		TopK best;
+
+		if (this.scoringPool != null && this.scoringPool.getParallelism() > 1 && size > MIN_CHUNK_SIZE) {
+			int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (this.scoringPool.getParallelism() * CHUNKS_PER_THREAD));
+
+			best = this.scoringPool.invoke(new ScoringTask(knowledgeBase, compiledQuery, eligible, candidates, 0, size, chunkSize));
+		} else {
+			best = this.score(knowledgeBase, compiledQuery, eligible, candidates, 0, size);
+		}
+
+		best.sort();
+
+		/*
+		 * Copy the selected products with their utility.
+		 */
+
+		List<Product> returnValues = new ArrayList<Product>(best.size());
+
+		for (int rank = 0; rank < best.size(); rank++) {
+			Product rp = new Product(knowledgeBase.getProduct(best.getOrdinal(rank)));
+			rp.setUtility(best.getScore(rank));
+			returnValues.add(rp);
 		}
 
 		/*
@@ -114,4 +238,126 @@ public class MainAlgorithm
 
 		return returnValues;
 	}
+
+	/**
+	 * Scores a range of products and keeps the best ones.
+	 * 
+	 * @param knowledgeBase Knowledge base.
+	 * @param compiledQuery Compiled query.
+	 * @param eligible Products that pass the query filters.
+	 * @param candidates Products to score.
+	 * @param from First ordinal (inclusive).
+	 * @param to Last ordinal (exclusive).
+	 * 
+	 * @return Best products of the range.
+	 */
+	private TopK score(KnowledgeBase knowledgeBase, CompiledQuery compiledQuery, BitSet eligible, BitSet candidates, int from, int to)
+	{
+		TopK best = new TopK(Math.min(this.firstXElements, knowledgeBase.size()), to - from);
+
+		for (int i = candidates.nextSetBit(from); i >= 0 && i < to; i = candidates.nextSetBit(i + 1)) {
+			double utility = UtilityFunction.calculateText(knowledgeBase.getText(i), compiledQuery);
+
+			if (utility >= this.minimumUtility) {
+				best.offer(i, utility);
+			}
+		}
+
+		/*
+		 * Filtered out products are only accepted by a negative minimum
+		 * utility.
+		 */
+
+		if (this.minimumUtility <= -1) {
+			for (int i = eligible.nextClearBit(from); i < to; i = eligible.nextClearBit(i + 1)) {
+				best.offer(i, -1);
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Fork/join task that scores a range of products, splitting it in halves
+	 * until it is small enough, and merges the best products of the halves.
+	 */
+	private class ScoringTask extends RecursiveTask<TopK>
+	{
+
+		private static final long serialVersionUID = 1L;
+
+		private final KnowledgeBase knowledgeBase;
+
+		private final CompiledQuery compiledQuery;
+
+		private final BitSet eligible;
+
+		private final BitSet candidates;
+
+		private final int from;
+
+		private final int to;
+
+		private final int chunkSize;
+
+		/**
+		 * Constructs a scoring task.
+		 * 
+		 * @param knowledgeBase Knowledge base.
+		 * @param compiledQuery Compiled query.
+		 * @param eligible Products that pass the query filters.
+		 * @param candidates Products to score.
+		 * @param from First ordinal (inclusive).
+		 * @param to Last ordinal (exclusive).
+		 * @param chunkSize Maximum range size scored without splitting.
+		 */
+		ScoringTask(KnowledgeBase knowledgeBase, CompiledQuery compiledQuery, BitSet eligible, BitSet candidates, int from, int to, int chunkSize)
+		{
+			this.knowledgeBase = knowledgeBase;
+			this.compiledQuery = compiledQuery;
+			this.eligible = eligible;
+			this.candidates = candidates;
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		protected TopK compute()
+		{
+			if (this.to - this.from <= this.chunkSize) {
+				return MainAlgorithm.this.score(this.knowledgeBase, this.compiledQuery, this.eligible, this.candidates, this.from, this.to);
+			}
+
+			int middle = (this.from + this.to) >>> 1;
+
+			ScoringTask left = new ScoringTask(this.knowledgeBase, this.compiledQuery, this.eligible, this.candidates, this.from, middle, this.chunkSize);
+			ScoringTask right = new ScoringTask(this.knowledgeBase, this.compiledQuery, this.eligible, this.candidates, middle, this.to, this.chunkSize);
+
+			left.fork();
+
+			TopK best = right.compute();
+			best.merge(left.join());
+
+			return best;
+		}
+	}
+
+	/**
+	 * Per-request scoring buffers. Only the requesting thread writes them;
+	 * parallel scoring tasks only read them.
+	 */
+	private static class ScoringBuffers
+	{
+
+		/**
+		 * Products that pass the query filters.
+		 */
+		private final BitSet eligible = new BitSet();
+
+		/**
+		 * Products to score.
+		 */
+		private final BitSet candidates = new BitSet();
+	}
 }
\ No newline at end of file
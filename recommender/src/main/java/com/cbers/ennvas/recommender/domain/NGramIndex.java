@@ -0,0 +1,336 @@
+package com.cbers.ennvas.recommender.domain;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * Inverted character n-gram index over the normalized text attributes of the
+ * knowledge base products.
+ * 
+ * Every n-gram of length 1 to 3 made of [a-z0-9] characters is mapped to the
+ * sorted list of product ordinals (posting list) whose name, type, brand or
+ * description contain it. Query words are sanitized to [a-z0-9], so a product
+ * can only contain a word as a substring (UtilityFunction#calculate) if it
+ * contains every n-gram of the word. The index returns that superset of
+ * candidates, and exact scoring stays in the utility function.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class NGramIndex
+{
+
+	/**
+	 * Maximum indexed n-gram length.
+	 */
+	private static final int MAX_GRAM_LENGTH = 3;
+
+	/**
+	 * Symbols per n-gram position: 0 (not indexable), a-z and 0-9.
+	 */
+	private static final int ALPHABET_SIZE = 37;
+
+	/**
+	 * Posting lists, by n-gram code.
+	 */
+	private final int[][] postings;
+
+	/**
+	 * Number of indexed products.
+	 */
+	private final int size;
+
+	/**
+	 * Builds the index of a knowledge base.
+	 * 
+	 * @param knowledgeBase Knowledge base to index.
+	 */
+	public NGramIndex(KnowledgeBase knowledgeBase)
+	{
+		int codes = ALPHABET_SIZE * ALPHABET_SIZE * ALPHABET_SIZE;
+
+		this.size = knowledgeBase.size();
+		this.postings = new int[codes][];
+
+		int[] lengths = new int[codes];
+
+		for (int ordinal = 0; ordinal < this.size; ordinal++) {
+			ProductText text = knowledgeBase.getText(ordinal);
+
+			this.add(text.getName(), ordinal, lengths);
+			this.add(text.getType(), ordinal, lengths);
+			this.add(text.getBrand(), ordinal, lengths);
+			this.add(text.getDescription(), ordinal, lengths);
+		}
+
+		/*
+		 * Trim the posting lists.
+		 */
+
+		for (int code = 0; code < codes; code++) {
+			if (this.postings[code] != null && this.postings[code].length != lengths[code]) {
+				this.postings[code] = Arrays.copyOf(this.postings[code], lengths[code]);
+			}
+		}
+	}
+
+	/**
+	 * Adds the n-grams of a normalized attribute to the posting lists.
+	 * 
+	 * @param attribute Normalized attribute.
+	 * @param ordinal Product ordinal.
+	 * @param lengths Used length of every posting list.
+	 */
+	private void add(String attribute, int ordinal, int[] lengths)
+	{
+		if (attribute == null) {
+			return;
+		}
+
+		int previous = 0;
+		int beforePrevious = 0;
+
+		for (int i = 0; i < attribute.length(); i++) {
+			int current = NGramIndex.symbol(attribute.charAt(i));
+
+			if (current == 0) {
+				previous = 0;
+				beforePrevious = 0;
+				continue;
+			}
+
+			this.post(current, ordinal, lengths);
+
+			if (previous != 0) {
+				this.post(previous * ALPHABET_SIZE + current, ordinal, lengths);
+
+				if (beforePrevious != 0) {
+					this.post((beforePrevious * ALPHABET_SIZE + previous) * ALPHABET_SIZE + current, ordinal, lengths);
+				}
+			}
+
+			beforePrevious = previous;
+			previous = current;
+		}
+	}
+
+	/**
+	 * Appends a product ordinal to a posting list, unless it is already the
+	 * last one.
+	 * 
+	 * @param code N-gram code.
+	 * @param ordinal Product ordinal.
+	 * @param lengths Used length of every posting list.
+	 */
+	private void post(int code, int ordinal, int[] lengths)
+	{
+		int[] list = this.postings[code];
+		int length = lengths[code];
+
+		if (list == null) {
+			list = new int[4];
+			this.postings[code] = list;
+		} else if (list[length - 1] == ordinal) {
+			return;
+		} else if (list.length == length) {
+			list = Arrays.copyOf(list, length * 2);
+			this.postings[code] = list;
+		}
+
+		list[length] = ordinal;
+		lengths[code] = length + 1;
+	}
+
+	/**
+	 * Returns the candidate products for a list of normalized query words:
+	 * the products that may contain at least one of them.
+	 * 
+	 * @param words Normalized query words.
+	 * 
+	 * @return Candidate product ordinals.
+	 */
+	public BitSet candidates(String[] words)
+	{
+		return this.candidates(words, new BitSet(this.size));
+	}
+
+	/**
+	 * Marks the candidate products for a list of normalized query words: the
+	 * products that may contain at least one of them.
+	 * 
+	 * @param words Normalized query words.
+	 * @param candidates Bitset where candidate ordinals are set. Previous
+	 * contents are discarded.
+	 * 
+	 * @return The candidates bitset.
+	 */
+	public BitSet candidates(String[] words, BitSet candidates)
+	{
+		candidates.clear();
+
+		for (String word : words) {
+			if (!NGramIndex.isIndexable(word)) {
+				/*
+				 * Empty words are contained by every attribute, and words with
+				 * non-indexable characters cannot be looked up.
+				 */
+
+				candidates.set(0, this.size);
+
+				return candidates;
+			}
+
+			for (int ordinal : this.lookup(word)) {
+				candidates.set(ordinal);
+			}
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Returns the products that contain every n-gram of an indexable word.
+	 * 
+	 * @param word Indexable word.
+	 * 
+	 * @return Sorted product ordinals.
+	 */
+	private int[] lookup(String word)
+	{
+		if (word.length() <= MAX_GRAM_LENGTH) {
+			return this.posting(NGramIndex.code(word, 0, word.length()));
+		}
+
+		int[][] lists = new int[word.length() - MAX_GRAM_LENGTH + 1][];
+
+		for (int i = 0; i < lists.length; i++) {
+			lists[i] = this.posting(NGramIndex.code(word, i, MAX_GRAM_LENGTH));
+		}
+
+		/*
+		 * Intersect the shortest lists first.
+		 */
+
+		Arrays.sort(lists, Comparator.comparingInt((int[] list) -> list.length));
+
+		int[] result = lists[0];
+
+		for (int i = 1; i < lists.length && result.length > 0; i++) {
+			result = NGramIndex.intersect(result, lists[i]);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the posting list of an n-gram code.
+	 * 
+	 * @param code N-gram code.
+	 * 
+	 * @return Sorted product ordinals.
+	 */
+	private int[] posting(int code)
+	{
+		int[] list = this.postings[code];
+
+		return list == null ? new int[0] : list;
+	}
+
+	/**
+	 * Intersects two sorted posting lists.
+	 * 
+	 * @param a First list.
+	 * @param b Second list.
+	 * 
+	 * @return Sorted intersection.
+	 */
+	private static int[] intersect(int[] a, int[] b)
+	{
+		int[] result = new int[Math.min(a.length, b.length)];
+		int length = 0;
+		int i = 0;
+		int j = 0;
+
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				result[length++] = a[i];
+				i++;
+				j++;
+			}
+		}
+
+		return Arrays.copyOf(result, length);
+	}
+
+	/**
+	 * Checks if a word can be looked up in the index.
+	 * 
+	 * @param word Normalized word.
+	 * 
+	 * @return True if the word is not empty and only has indexable characters.
+	 */
+	private static boolean isIndexable(String word)
+	{
+		if (word.isEmpty()) {
+			return false;
+		}
+
+		for (int i = 0; i < word.length(); i++) {
+			if (NGramIndex.symbol(word.charAt(i)) == 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the code of an n-gram of indexable characters.
+	 * 
+	 * @param word Word that contains the n-gram.
+	 * @param offset N-gram start.
+	 * @param length N-gram length (1 to 3).
+	 * 
+	 * @return N-gram code.
+	 */
+	private static int code(String word, int offset, int length)
+	{
+		int code = 0;
+
+		for (int i = offset; i < offset + length; i++) {
+			code = code * ALPHABET_SIZE + NGramIndex.symbol(word.charAt(i));
+		}
+
+		return code;
+	}
+
+	/**
+	 * Returns the index symbol of a character.
+	 * 
+	 * @param c Character.
+	 * 
+	 * @return 1 to 26 for a-z, 27 to 36 for 0-9 and 0 for other characters.
+	 */
+	private static int symbol(char c)
+	{
+		if (c >= 'a' && c <= 'z') {
+			return c - 'a' + 1;
+		}
+
+		if (c >= '0' && c <= '9') {
+			return c - '0' + 27;
+		}
+
+		return 0;
+	}
+}
\ No newline at end of file
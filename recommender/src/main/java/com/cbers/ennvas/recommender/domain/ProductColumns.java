@@ -0,0 +1,170 @@
+package com.cbers.ennvas.recommender.domain;
+
+import java.util.BitSet;
+import java.util.List;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+/**
+ * Columnar (struct of arrays) store of the numeric Product attributes used by
+ * the query filters, indexed by product ordinal.
+ * 
+ * Filters are evaluated one column at a time over primitive arrays, into a
+ * caller-provided bitset of eligible ordinals, so no objects are read or
+ * allocated per product.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class ProductColumns
+{
+
+	/**
+	 * Prices (in euros).
+	 */
+	private final double[] price;
+
+	/**
+	 * Stocks (in units).
+	 */
+	private final int[] stock;
+
+	/**
+	 * Ratings (in range 0.0 to 5.0).
+	 */
+	private final double[] rating;
+
+	/**
+	 * Shipping prices (in euros).
+	 */
+	private final double[] shippingPrice;
+
+	/**
+	 * Shipping times (in days).
+	 */
+	private final int[] shippingTime;
+
+	/**
+	 * Constructs the columns of a list of products.
+	 * 
+	 * @param products Products, by ordinal.
+	 */
+	public ProductColumns(List<Product> products)
+	{
+		int size = products.size();
+
+		this.price = new double[size];
+		this.stock = new int[size];
+		this.rating = new double[size];
+		this.shippingPrice = new double[size];
+		this.shippingTime = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			Product product = products.get(i);
+
+			this.price[i] = product.getPrice();
+			this.stock[i] = product.getStock();
+			this.rating[i] = product.getRating();
+			this.shippingPrice[i] = product.getShippingPrice();
+			this.shippingTime[i] = product.getShippingTime();
+		}
+	}
+
+	/**
+	 * Returns the number of products.
+	 * 
+	 * @return Number of products.
+	 */
+	public int size()
+	{
+		return this.price.length;
+	}
+
+	/**
+	 * Evaluates the query filters (see UtilityFunction#calculate) and marks
+	 * the eligible products, that is, those whose utility is not -1.
+	 * 
+	 * @param query Query whose filters are evaluated.
+	 * @param eligible Bitset where eligible ordinals are set. Previous
+	 * contents are discarded.
+	 * 
+	 * @return The eligible bitset.
+	 */
+	public BitSet filter(Query query, BitSet eligible)
+	{
+		int size = this.size();
+
+		eligible.clear();
+		eligible.set(0, size);
+
+		/* Query minimum price. */
+		if (query.getPriceMin() > 0.0) {
+			double priceMin = query.getPriceMin();
+
+			for (int i = 0; i < size; i++) {
+				if (priceMin > this.price[i]) {
+					eligible.clear(i);
+				}
+			}
+		}
+
+		/* Query maximum price. */
+		if (query.getPriceMax() > 0.0) {
+			double priceMax = query.getPriceMax();
+
+			for (int i = 0; i < size; i++) {
+				if (priceMax < this.price[i]) {
+					eligible.clear(i);
+				}
+			}
+		}
+
+		/* Query free shipping. */
+		if (query.isFreeShipping()) {
+			for (int i = 0; i < size; i++) {
+				if (this.shippingPrice[i] != 0) {
+					eligible.clear(i);
+				}
+			}
+		}
+
+		/* Query maximum shipping time. */
+		if (query.getMaxShippingTime() > 0) {
+			int maxShippingTime = query.getMaxShippingTime();
+
+			for (int i = 0; i < size; i++) {
+				if (maxShippingTime < this.shippingTime[i]) {
+					eligible.clear(i);
+				}
+			}
+		}
+
+		/* Query available. */
+		if (query.isAvailable()) {
+			for (int i = 0; i < size; i++) {
+				if (this.stock[i] == 0) {
+					eligible.clear(i);
+				}
+			}
+		}
+
+		/* Query minimum rating. */
+		if (query.getMinRating() > 0) {
+			double minRating = query.getMinRating();
+
+			for (int i = 0; i < size; i++) {
+				if (minRating > this.rating[i]) {
+					eligible.clear(i);
+				}
+			}
+		}
+
+		return eligible;
+	}
+}
\ No newline at end of file
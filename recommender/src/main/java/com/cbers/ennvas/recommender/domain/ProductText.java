@@ -0,0 +1,57 @@
+package com.cbers.ennvas.recommender.domain;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+import lombok.Getter;
+
+/**
+ * Normalized (ASCII-folded and lowercased) text attributes of a Product.
+ * 
+ * Built once when the knowledge base arrives, so that the utility function
+ * does not need to normalize the same attributes once per query word.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Getter
+public class ProductText
+{
+
+	/**
+	 * Normalized name.
+	 */
+	private final String name;
+
+	/**
+	 * Normalized type.
+	 */
+	private final String type;
+
+	/**
+	 * Normalized brand.
+	 */
+	private final String brand;
+
+	/**
+	 * Normalized description.
+	 */
+	private final String description;
+
+	/**
+	 * Constructs the normalized text attributes of a Product.
+	 * 
+	 * @param product Source Product.
+	 */
+	public ProductText(Product product)
+	{
+		this.name = UtilityFunction.normalize(product.getName());
+		this.type = UtilityFunction.normalize(product.getType());
+		this.brand = UtilityFunction.normalize(product.getBrand());
+		this.description = UtilityFunction.normalize(product.getDescription());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,231 @@
+package com.cbers.ennvas.recommender.domain;
+
+import java.util.Arrays;
+
+/**
+ * Aho-Corasick automaton that finds which of a set of normalized query
+ * tokens (see UtilityFunction#tokenize) occur in a normalized text, scanning
+ * the text once.
+ * 
+ * Tokens can only contain a-z and 0-9, so any other character of the text
+ * takes the automaton back to the root. Found tokens are reported as a bitmask by token
+ * index, so at most MAX_TOKENS tokens are supported (see
+ * TokenMatcher#supports). The empty token occurs in every text.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class TokenMatcher
+{
+
+	/**
+	 * Maximum number of tokens.
+	 */
+	public static final int MAX_TOKENS = Long.SIZE;
+
+	/**
+	 * Number of token symbols: a-z and 0-9.
+	 */
+	private static final int TOKEN_SYMBOLS = 36;
+
+	/**
+	 * Number of symbols: token symbols and a last one for any other
+	 * character, which goes back to the root.
+	 */
+	private static final int SYMBOLS = TOKEN_SYMBOLS + 1;
+
+	/**
+	 * Symbol of each ASCII character.
+	 */
+	private static final byte[] SYMBOL_TABLE = new byte[128];
+
+	static {
+		for (char c = 0; c < SYMBOL_TABLE.length; c++) {
+			if (c >= 'a' && c <= 'z') {
+				SYMBOL_TABLE[c] = (byte) (c - 'a');
+			} else if (c >= '0' && c <= '9') {
+				SYMBOL_TABLE[c] = (byte) (26 + (c - '0'));
+			} else {
+				SYMBOL_TABLE[c] = TOKEN_SYMBOLS;
+			}
+		}
+	}
+
+	/**
+	 * Next state of each state and symbol, SYMBOLS per state (at state *
+	 * SYMBOLS + symbol). State 0 is the root.
+	 */
+	private final int[] transitions;
+
+	/**
+	 * Tokens found when reaching each state.
+	 */
+	private final long[] outputs;
+
+	/**
+	 * All the tokens.
+	 */
+	private final long all;
+
+	/**
+	 * Checks if an automaton can be built for a set of tokens: there are at
+	 * most MAX_TOKENS, and they only contain a-z and 0-9.
+	 * 
+	 * @param tokens Normalized tokens.
+	 * 
+	 * @return True if supported.
+	 */
+	public static boolean supports(String[] tokens)
+	{
+		if (tokens.length > MAX_TOKENS) {
+			return false;
+		}
+
+		for (String token : tokens) {
+			for (int i = 0; i < token.length(); i++) {
+				if (TokenMatcher.symbol(token.charAt(i)) == TOKEN_SYMBOLS) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Builds the automaton of a set of tokens.
+	 * 
+	 * @param tokens Normalized tokens (see TokenMatcher#supports).
+	 */
+	public TokenMatcher(String[] tokens)
+	{
+		if (!TokenMatcher.supports(tokens)) {
+			throw new IllegalArgumentException("Tokens are not supported: at most " + MAX_TOKENS + ", with a-z and 0-9 only.");
+		}
+
+		int capacity = 1;
+
+		for (String token : tokens) {
+			capacity += token.length();
+		}
+
+		int[] transitions = new int[capacity * SYMBOLS];
+		long[] outputs = new long[capacity];
+		int states = 1;
+
+		Arrays.fill(transitions, -1);
+
+		/*
+		 * Build the trie of the tokens.
+		 */
+
+		for (int t = 0; t < tokens.length; t++) {
+			String token = tokens[t];
+			int state = 0;
+
+			for (int i = 0; i < token.length(); i++) {
+				int symbol = TokenMatcher.symbol(token.charAt(i));
+				int next = transitions[state * SYMBOLS + symbol];
+
+				if (next < 0) {
+					next = states++;
+					transitions[state * SYMBOLS + symbol] = next;
+				}
+
+				state = next;
+			}
+
+			outputs[state] |= 1L << t;
+		}
+
+		/*
+		 * Complete the transitions breadth first with the failure links, so
+		 * that every state has a transition for every symbol, and add the
+		 * outputs of the failure states.
+		 */
+
+		int[] fail = new int[states];
+		int[] queue = new int[states];
+		int head = 0;
+		int tail = 0;
+
+		for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+			int next = transitions[symbol];
+
+			if (next < 0) {
+				transitions[symbol] = 0;
+			} else {
+				fail[next] = 0;
+				queue[tail++] = next;
+			}
+		}
+
+		while (head < tail) {
+			int state = queue[head++];
+
+			outputs[state] |= outputs[fail[state]];
+
+			for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+				int next = transitions[state * SYMBOLS + symbol];
+				int fallback = transitions[fail[state] * SYMBOLS + symbol];
+
+				if (next < 0) {
+					transitions[state * SYMBOLS + symbol] = fallback;
+				} else {
+					fail[next] = fallback;
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		this.transitions = Arrays.copyOf(transitions, states * SYMBOLS);
+		this.outputs = Arrays.copyOf(outputs, states);
+
+		this.all = tokens.length == MAX_TOKENS ? -1L : (1L << tokens.length) - 1;
+	}
+
+	/**
+	 * Finds the tokens that occur in a text.
+	 * 
+	 * @param text Normalized text. Missing texts contain no token.
+	 * 
+	 * @return Bitmask of the found tokens, by token index.
+	 */
+	public long match(String text)
+	{
+		if (text == null) {
+			return 0;
+		}
+
+		/*
+		 * The root output is the empty token, if any.
+		 */
+
+		long found = this.outputs[0];
+		int state = 0;
+
+		for (int i = 0; i < text.length() && found != this.all; i++) {
+			state = this.transitions[state * SYMBOLS + TokenMatcher.symbol(text.charAt(i))];
+			found |= this.outputs[state];
+		}
+
+		return found;
+	}
+
+	/**
+	 * Returns the symbol of a character.
+	 * 
+	 * @param c Character.
+	 * 
+	 * @return Symbol, TOKEN_SYMBOLS if no token contains the character.
+	 */
+	private static int symbol(char c)
+	{
+		return c < SYMBOL_TABLE.length ? SYMBOL_TABLE[c] : TOKEN_SYMBOLS;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.cbers.ennvas.recommender.domain;
+
+import java.util.Arrays;
+
+/**
+ * Bounded selection of the K best scored product ordinals.
+ * 
+ * Keeps a binary min-heap of at most K entries on primitive arrays, so
+ * selecting the best K of n products takes O(n log K) time and O(min(K, n))
+ * memory: the arrays grow with the kept entries, so a large K does not
+ * allocate K entries for every scored chunk.
+ * 
+ * An entry is better than another if its score is higher or, with equal
+ * scores, if its ordinal is lower. This is the order of a stable descending
+ * sort of the knowledge base, so results are deterministic.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class TopK
+{
+
+	/**
+	 * Maximum number of entries.
+	 */
+	private final int capacity;
+
+	/**
+	 * Heap ordinals. The root is the worst kept entry.
+	 */
+	private int[] ordinals;
+
+	/**
+	 * Heap scores.
+	 */
+	private double[] scores;
+
+	/**
+	 * Number of kept entries.
+	 */
+	private int size;
+
+	/**
+	 * Constructs an empty selection.
+	 * 
+	 * @param capacity Maximum number of entries (K).
+	 * @param expectedSize Maximum number of entries expected to be offered,
+	 * used to size the initial arrays.
+	 */
+	public TopK(int capacity, int expectedSize)
+	{
+		this.capacity = Math.max(capacity, 0);
+		this.ordinals = new int[Math.max(Math.min(this.capacity, expectedSize), 0)];
+		this.scores = new double[this.ordinals.length];
+		this.size = 0;
+	}
+
+	/**
+	 * Offers a scored ordinal. It is kept if it is among the K best offered
+	 * so far.
+	 * 
+	 * @param ordinal Product ordinal.
+	 * @param score Product score.
+	 */
+	public void offer(int ordinal, double score)
+	{
+		if (this.size < this.capacity) {
+			if (this.size == this.ordinals.length) {
+				this.grow();
+			}
+
+			this.ordinals[this.size] = ordinal;
+			this.scores[this.size] = score;
+			this.siftUp(this.size);
+			this.size++;
+		} else if (this.capacity > 0 && TopK.isBetter(ordinal, score, this.ordinals[0], this.scores[0])) {
+			this.ordinals[0] = ordinal;
+			this.scores[0] = score;
+			this.siftDown(0);
+		}
+	}
+
+	/**
+	 * Merges another selection into this one.
+	 * 
+	 * @param other Other selection.
+	 */
+	public void merge(TopK other)
+	{
+		for (int i = 0; i < other.size; i++) {
+			this.offer(other.ordinals[i], other.scores[i]);
+		}
+	}
+
+	/**
+	 * Returns the number of kept entries.
+	 * 
+	 * @return Number of kept entries.
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+
+	/**
+	 * Sorts the kept entries from best to worst. No more entries can be
+	 * offered after sorting.
+	 */
+	public void sort()
+	{
+		int heapSize = this.size;
+
+		/*
+		 * Heap sort: repeatedly move the worst entry (root) to the end of the
+		 * shrinking heap.
+		 */
+
+		while (this.size > 1) {
+			this.size--;
+			this.swap(0, this.size);
+			this.siftDown(0);
+		}
+
+		this.size = heapSize;
+	}
+
+	/**
+	 * Returns the ordinal at a rank of the sorted selection.
+	 * 
+	 * @param rank Rank (0 is the best).
+	 * 
+	 * @return Product ordinal.
+	 */
+	public int getOrdinal(int rank)
+	{
+		return this.ordinals[rank];
+	}
+
+	/**
+	 * Returns the score at a rank of the sorted selection.
+	 * 
+	 * @param rank Rank (0 is the best).
+	 * 
+	 * @return Product score.
+	 */
+	public double getScore(int rank)
+	{
+		return this.scores[rank];
+	}
+
+	/**
+	 * Moves a heap entry up until its parent is worse.
+	 * 
+	 * @param i Entry position.
+	 */
+	private void siftUp(int i)
+	{
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+
+			if (!TopK.isBetter(this.ordinals[parent], this.scores[parent], this.ordinals[i], this.scores[i])) {
+				return;
+			}
+
+			this.swap(i, parent);
+			i = parent;
+		}
+	}
+
+	/**
+	 * Moves a heap entry down until its children are better.
+	 * 
+	 * @param i Entry position.
+	 */
+	private void siftDown(int i)
+	{
+		while (true) {
+			int worst = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+
+			if (left < this.size && TopK.isBetter(this.ordinals[worst], this.scores[worst], this.ordinals[left], this.scores[left])) {
+				worst = left;
+			}
+
+			if (right < this.size && TopK.isBetter(this.ordinals[worst], this.scores[worst], this.ordinals[right], this.scores[right])) {
+				worst = right;
+			}
+
+			if (worst == i) {
+				return;
+			}
+
+			this.swap(i, worst);
+			i = worst;
+		}
+	}
+
+	/**
+	 * Doubles the length of the heap arrays, up to the capacity.
+	 */
+	private void grow()
+	{
+		int length = (int) Math.min((long) this.capacity, Math.max(2L * this.ordinals.length, 16L));
+
+		this.ordinals = Arrays.copyOf(this.ordinals, length);
+		this.scores = Arrays.copyOf(this.scores, length);
+	}
+
+	/**
+	 * Swaps two heap entries.
+	 * 
+	 * @param i First entry position.
+	 * @param j Second entry position.
+	 */
+	private void swap(int i, int j)
+	{
+		int ordinal = this.ordinals[i];
+		double score = this.scores[i];
+
+		this.ordinals[i] = this.ordinals[j];
+		this.scores[i] = this.scores[j];
+		this.ordinals[j] = ordinal;
+		this.scores[j] = score;
+	}
+
+	/**
+	 * Checks if an entry is better than another one.
+	 * 
+	 * @param ordinal First entry ordinal.
+	 * @param score First entry score.
+	 * @param otherOrdinal Second entry ordinal.
+	 * @param otherScore Second entry score.
+	 * 
+	 * @return True if the first entry is better.
+	 */
+	private static boolean isBetter(int ordinal, double score, int otherOrdinal, double otherScore)
+	{
+		return score > otherScore || (score == otherScore && ordinal < otherOrdinal);
+	}
+}
\ No newline at end of file
@@ -1,5 +1,8 @@
 package com.cbers.ennvas.recommender.domain;
 
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 import com.cbers.ennvas.recommender.domain.resource.Product;
 import com.cbers.ennvas.recommender.domain.resource.Query;
 
@@ -29,31 +32,235 @@ public class UtilityFunction
 	private static final String PLAIN_ASCII =
 		"AaEeIiOoUuAaEeIiOoUuYyAaEeIiOoUuYyAaOoNnAaEeIiOoUuYyAaCcOoUu";
 		
+	/**
+	 * Size of the folding lookup tables. All the replaced Unicode characters
+	 * are below it.
+	 */
+	private static final int TABLE_SIZE = 0x180;
+
+	/**
+	 * ASCII replacement of each character below TABLE_SIZE (the character
+	 * itself if it is not replaced).
+	 */
+	private static final char[] ASCII_TABLE = new char[TABLE_SIZE];
+
+	/**
+	 * Lowercased ASCII replacement of each character below TABLE_SIZE.
+	 */
+	private static final char[] FOLD_TABLE = new char[TABLE_SIZE];
+
+	/**
+	 * Special symbols, ignored in query phrases: all but a-z, A-Z, 0-9 and 
+	 * space.
+	 */
+	private static final Pattern SPECIAL_SYMBOLS = Pattern.compile("[^\\sA-Za-z0-9]");
+
+	/**
+	 * Spaces, that separate the words of query phrases.
+	 */
+	private static final Pattern SPACES = Pattern.compile("[\\s]+");
+
+	/**
+	 * Word separator of sanitized query phrases.
+	 */
+	private static final Pattern SEPARATOR = Pattern.compile(";");
+
+	static {
+		for (char c = 0; c < TABLE_SIZE; c++) {
+			ASCII_TABLE[c] = c;
+		}
+
+		for (int i = 0; i < UNICODE.length(); i++) {
+			ASCII_TABLE[UNICODE.charAt(i)] = PLAIN_ASCII.charAt(i);
+		}
+
+		for (char c = 0; c < TABLE_SIZE; c++) {
+			FOLD_TABLE[c] = Character.toLowerCase(ASCII_TABLE[c]);
+		}
+	}
+		
 	/**
 	 * Converts an Unicode string to plain ASCII.
 	 * 
+	 * Returns the same string if no character has to be replaced.
+	 * 
 	 * @param str String to convert.
 	 * 
 	 * @return Converted string.
 	 */
 	public static String strToAscii(String str) {
-	    if (str == null) {
-	        return null;
-	    }
-	    
-	    StringBuilder sb = new StringBuilder();
-	    
-	    for (int i = 0; i < str.length(); i++) {
-	        char c = str.charAt(i);
-	        int pos = UNICODE.indexOf(c);
-	        if (pos > -1) {
-	            sb.append(PLAIN_ASCII.charAt(pos));
-	        } else {
-	            sb.append(c);
-	        }
-	    }
-	    
-	    return sb.toString();
+		if (str == null) {
+			return null;
+		}
+
+		int length = str.length();
+		int i = 0;
+
+		/*
+		 * Skip the characters that are not replaced.
+		 */
+
+		while (i < length) {
+			char c = str.charAt(i);
+
+			if (c < TABLE_SIZE && ASCII_TABLE[c] != c) {
+				break;
+			}
+
+			i++;
+		}
+
+		if (i == length) {
+			return str;
+		}
+
+		/*
+		 * Replace the rest.
+		 */
+
+		char[] chars = str.toCharArray();
+
+		for (; i < length; i++) {
+			char c = chars[i];
+
+			if (c < TABLE_SIZE) {
+				chars[i] = ASCII_TABLE[c];
+			}
+		}
+
+		return new String(chars);
+	}
+
+	/**
+	 * Normalizes a string for comparison: converts it to plain ASCII and
+	 * lowercases it.
+	 * 
+	 * Both are done in a single pass with a lookup table, and the same 
+	 * string is returned if it is already normalized. The result is the same
+	 * as strToAscii(str).toLowerCase(): strings with characters whose 
+	 * lowercase depends on their context (see String#toLowerCase), or in 
+	 * locales with special lowercasing rules, take that slower path.
+	 * 
+	 * @param str String to normalize.
+	 * 
+	 * @return Normalized string.
+	 */
+	public static String normalize(String str)
+	{
+		if (str == null) {
+			return null;
+		}
+
+		String language = Locale.getDefault().getLanguage();
+
+		if ("tr".equals(language) || "az".equals(language) || "lt".equals(language)) {
+			return UtilityFunction.strToAscii(str).toLowerCase();
+		}
+
+		int length = str.length();
+		int i = 0;
+
+		/*
+		 * Skip the characters that are already normalized.
+		 */
+
+		while (i < length) {
+			char c = str.charAt(i);
+
+			if (UtilityFunction.isContextual(c)) {
+				return UtilityFunction.strToAscii(str).toLowerCase();
+			}
+
+			if (UtilityFunction.fold(c) != c) {
+				break;
+			}
+
+			i++;
+		}
+
+		if (i == length) {
+			return str;
+		}
+
+		/*
+		 * Normalize the rest.
+		 */
+
+		char[] chars = str.toCharArray();
+
+		for (; i < length; i++) {
+			char c = chars[i];
+
+			if (UtilityFunction.isContextual(c)) {
+				return UtilityFunction.strToAscii(str).toLowerCase();
+			}
+
+			chars[i] = UtilityFunction.fold(c);
+		}
+
+		return new String(chars);
+	}
+
+	/**
+	 * Converts a character to plain ASCII and lowercases it.
+	 * 
+	 * @param c Character, not contextual (see UtilityFunction#isContextual).
+	 * 
+	 * @return Normalized character.
+	 */
+	private static char fold(char c)
+	{
+		return c < TABLE_SIZE ? FOLD_TABLE[c] : Character.toLowerCase(c);
+	}
+
+	/**
+	 * Checks if a character is lowercased by String#toLowerCase depending on
+	 * its context, so that it cannot be lowercased on its own: capital I with
+	 * dot above, capital sigma and surrogates.
+	 * 
+	 * @param c Character.
+	 * 
+	 * @return True if the character is contextual.
+	 */
+	private static boolean isContextual(char c)
+	{
+		return c == '\u0130' || c == '\u03A3' || Character.isSurrogate(c);
+	}
+
+	/**
+	 * Splits a query phrase into normalized words.
+	 * 
+	 * @param phrase Query phrase.
+	 * 
+	 * @return Normalized words.
+	 */
+	public static String[] tokenize(String phrase)
+	{
+		/*
+		 * Ignore special symbols: allow only a-z, A-Z, 0-9 and space.
+		 * Also compress spaces: "    " and " " are replaced with ";".
+		 */
+		
+		phrase = SPECIAL_SYMBOLS.matcher(phrase).replaceAll("");
+		phrase = SPACES.matcher(phrase).replaceAll(";");
+		
+		/*
+		 * Semicolon-split the phrase.
+		 */
+		
+		String[] phraseArray = SEPARATOR.split(phrase);
+
+		/*
+		 * All strings are ASCII-compared to avoid diacritic mistakes.
+		 * 
+		 * Lowercase the words.
+		 */
+
+		for (int i = 0; i < phraseArray.length; i++) {
+			phraseArray[i] = UtilityFunction.normalize(phraseArray[i]);
+		}
+
+		return phraseArray;
 	}
 
 	/**
@@ -61,14 +268,35 @@ public class UtilityFunction
 	 * 
 	 * Returns an utility value based on a query.
 	 * 
+	 * Compiles the query for this product only: to evaluate many products, 
+	 * compile it once (see CompiledQuery).
+	 * 
+	 * @param product Product to evaluate.
 	 * @param query Query base.
 	 * 
 	 * @return Utility value.
 	 */
 	public static double calculate(Product product, Query query)
 	{
-		double utility = 0;
-		
+		return UtilityFunction.calculate(product, new ProductText(product), new CompiledQuery(query));
+	}
+
+	/**
+	 * Utility function.
+	 * 
+	 * Returns an utility value based on a compiled query, using the 
+	 * pre-normalized text attributes of the product.
+	 * 
+	 * @param product Product to evaluate.
+	 * @param text Normalized text attributes of the product.
+	 * @param compiledQuery Compiled query base.
+	 * 
+	 * @return Utility value.
+	 */
+	public static double calculate(Product product, ProductText text, CompiledQuery compiledQuery)
+	{
+		Query query = compiledQuery.getQuery();
+
 		/*
 		 * Every "if" statement checks if the param has a default value.
 		 * If value is default, param is not checked, it is taken as null
@@ -108,54 +336,104 @@ public class UtilityFunction
 			return -1;
 		}
 		
+		return UtilityFunction.calculateText(text, compiledQuery);
+	}
+
+	/**
+	 * Text part of the utility function.
+	 * 
+	 * Returns the number of (word, attribute) pairs where the normalized 
+	 * attribute contains the word, counting repeated words once per 
+	 * appearance. The query filters are not evaluated.
+	 * 
+	 * @param text Normalized text attributes of the product.
+	 * @param compiledQuery Compiled query.
+	 * 
+	 * @return Utility value.
+	 */
+	public static double calculateText(ProductText text, CompiledQuery compiledQuery)
+	{
+		String[] tokens = compiledQuery.getTokens();
+		int[] weights = compiledQuery.getWeights();
+		TokenMatcher matcher = compiledQuery.getMatcher();
+
 		/*
-		 * Ignore special symbols: allow only a-z, A-Z, 0-9 and space.
-		 * Also compress spaces: "    " and " " are replaced with ";".
-		 */
-		
-		String phrase = query.getPhrase().replaceAll("[^\\sA-Za-z0-9]", "");
-		phrase = phrase.replaceAll("[\\s]+", ";");
-		
-		/*
-		 * Semicolon-split the phrase.
+		 * Scan every attribute once for all the words, if possible.
 		 */
-		
-		String[] phraseArray = phrase.split(";");
+
+		if (matcher != null) {
+			return UtilityFunction.weight(matcher.match(text.getName()), weights) +
+				UtilityFunction.weight(matcher.match(text.getType()), weights) +
+				UtilityFunction.weight(matcher.match(text.getBrand()), weights) +
+				UtilityFunction.weight(matcher.match(text.getDescription()), weights);
+		}
+
+		double utility = 0;
 
 		/*
-		 * For each word.
+		 * For each distinct word.
 		 */
 
-		for (String p : phraseArray) {
-			/*
-			 * All strings are ASCII-compared to avoid diacritic mistakes.
-			 * 
-			 * Lowercase the phrase.
-			 */
-			
-			String lcp = UtilityFunction.strToAscii(p).toLowerCase();
-			
+		for (int i = 0; i < tokens.length; i++) {
+			String lcp = tokens[i];
+			int matches = 0;
+
 			/*
 			 * Check every attribute that could be specified in the phrase.
 			 */
 			
-			if (UtilityFunction.strToAscii(product.getName()).toLowerCase().contains(lcp)) {
-				utility++;
+			if (UtilityFunction.contains(text.getName(), lcp)) {
+				matches++;
 			}
 
-			if (UtilityFunction.strToAscii(product.getType()).toLowerCase().contains(lcp)) {
-				utility++;
+			if (UtilityFunction.contains(text.getType(), lcp)) {
+				matches++;
 			}
 
-			if (UtilityFunction.strToAscii(product.getBrand()).toLowerCase().contains(lcp)) {
-				utility++;
+			if (UtilityFunction.contains(text.getBrand(), lcp)) {
+				matches++;
 			}
 
-			if (UtilityFunction.strToAscii(product.getDescription()).toLowerCase().contains(lcp)) {
-				utility++;
+			if (UtilityFunction.contains(text.getDescription(), lcp)) {
+				matches++;
 			}
+
+			utility += matches * weights[i];
 		}
 
 		return utility;
 	}
+
+	/**
+	 * Adds the weights of a set of tokens.
+	 * 
+	 * @param tokens Bitmask of tokens, by token index.
+	 * @param weights Token weights.
+	 * 
+	 * @return Sum of the weights.
+	 */
+	private static int weight(long tokens, int[] weights)
+	{
+		int weight = 0;
+
+		for (long rest = tokens; rest != 0; rest &= rest - 1) {
+			weight += weights[Long.numberOfTrailingZeros(rest)];
+		}
+
+		return weight;
+	}
+
+	/**
+	 * Checks if a normalized attribute contains a normalized word. Missing
+	 * attributes contain nothing.
+	 * 
+	 * @param attribute Normalized attribute.
+	 * @param word Normalized word.
+	 * 
+	 * @return True if the attribute contains the word.
+	 */
+	private static boolean contains(String attribute, String word)
+	{
+		return attribute != null && attribute.contains(word);
+	}
 }
\ No newline at end of file
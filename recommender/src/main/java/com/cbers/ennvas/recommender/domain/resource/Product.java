@@ -25,6 +25,11 @@ import lombok.NoArgsConstructor;
 public class Product
 {
 
+	/**
+	 * Unique identifier, given by the agent manager. Null if it is unknown.
+	 */
+	private Integer productId;
+
 	/**
 	 * Name.
 	 */
@@ -92,6 +97,7 @@ public class Product
 	 */
 	public Product(Product p)
 	{
+		this.productId = p.getProductId();
 		this.name = p.getName();
 		this.type = p.getType();
 		this.brand = p.getBrand();
@@ -110,6 +116,7 @@ public class Product
 	public String toString()
 	{
 		return "Product: [ " +
+		"productId: " + this.getProductId() + ", " +
 		"name: " + this.getName() + ", " +
 		"type: " + this.getType() + ", " +
 		"brand: " + this.getBrand() + ", " +
@@ -1,18 +1,30 @@
 package com.cbers.ennvas.recommender.rest.controller;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
+import com.cbers.ennvas.recommender.application.service.KnowledgeBaseService;
+import com.cbers.ennvas.recommender.application.service.ResultCacheService;
+import com.cbers.ennvas.recommender.domain.CompiledQuery;
+import com.cbers.ennvas.recommender.domain.KnowledgeBase;
 import com.cbers.ennvas.recommender.domain.MainAlgorithm;
 import com.cbers.ennvas.recommender.domain.resource.Product;
 import com.cbers.ennvas.recommender.domain.resource.ProductList;
+import com.cbers.ennvas.recommender.domain.resource.Query;
 
+import com.cbers.ennvas.recommender.rest.data.KnowledgeBaseDelta;
+import com.cbers.ennvas.recommender.rest.data.KnowledgeBaseVersion;
+import com.cbers.ennvas.recommender.rest.data.RcmQueryRequest;
 import com.cbers.ennvas.recommender.rest.data.RcmRequest;
+import com.cbers.ennvas.recommender.rest.data.ResultCacheStatistics;
+import com.cbers.ennvas.recommender.rest.data.ScoredProduct;
+import com.cbers.ennvas.recommender.rest.data.ScoredProductList;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.ApplicationArguments;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -21,6 +33,15 @@ import org.springframework.web.bind.annotation.RestController;
 /**
  * Handles requests to the REST API.
  * 
+ * Requests that send or receive products also accept Smile (binary JSON,
+ * "application/x-jackson-smile"), which is smaller and faster to read and
+ * write. JSON is the default.
+ * 
+ * Query results can be responded with the "ids" projection (parameter
+ * "projection=ids"): only the unique identifier (or the provider unique URL,
+ * if it has none) and the utility of each product, for clients that already
+ * have the product data.
+ * 
  * @author Juan Francisco Carrión Molina
  * @author Raquel Pérez González de Ossuna
  * @author Olga Posada Iglesias
@@ -36,8 +57,23 @@ public class RcmRestController
 
     private static final Logger log = LoggerFactory.getLogger(RcmRestController.class);
 
+	/**
+	 * Smile media type.
+	 */
+	private static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+	@Autowired
+	private KnowledgeBaseService knowledgeBaseService;
+
+	@Autowired
+	private ResultCacheService resultCacheService;
+
+	/**
+	 * Algorithm shared by all the requests, initialized with the command line
+	 * arguments (see RcmConfig).
+	 */
 	@Autowired
-	private ApplicationArguments applicationArguments;
+	private MainAlgorithm mainAlgorithm;
 
 	/**
 	 * Receives a POST request and passes it as RcmRequestWrapper to 
@@ -56,29 +92,212 @@ public class RcmRestController
 	 */
 	@PostMapping(
 		value = "/process",
-		consumes = "application/json",
-		produces = "application/json"
+		consumes = { "application/json", APPLICATION_SMILE },
+		produces = { "application/json", APPLICATION_SMILE }
 	)
 	public ProductList process(@RequestBody RcmRequest request)
 	{
 		log.info("Received query process request.");
 
 		/*
-		 * Retrieve command line arguments (pre-validated).
+		 * Pass the request.
 		 */
 
-		String[] args = applicationArguments.getSourceArgs();
-		int minimumUtilityArg = Integer.parseInt(args[0]);
-		int firstXElementsArg = Integer.parseInt(args[1]);
+		return RcmRestController.passRequest(request, mainAlgorithm);
+	}
+
+	/**
+	 * Same as process, with the "ids" projection: responds the unique
+	 * identifier and the utility of the result products only.
+	 * 
+	 * @param request Query and knowledge base.
+	 * 
+	 * @return Result products, identified by their unique identifier.
+	 */
+	@PostMapping(
+		value = "/process",
+		params = "projection=ids",
+		consumes = { "application/json", APPLICATION_SMILE },
+		produces = { "application/json", APPLICATION_SMILE }
+	)
+	public ScoredProductList processIds(@RequestBody RcmRequest request)
+	{
+		log.info("Received query process request (ids projection).");
+
+		return RcmRestController.project(RcmRestController.passRequest(request, mainAlgorithm));
+	}
+
+	/**
+	 * Receives a POST request with a query and the version of the resident
+	 * knowledge base, and processes the query against it. No knowledge base
+	 * is sent or copied.
+	 * 
+	 * Results are cached by knowledge base version and canonical query (see
+	 * ResultCacheService).
+	 * 
+	 * Responds 409 Conflict if the version is not the resident one.
+	 * 
+	 * @param request Query and knowledge base version.
+	 * 
+	 * @return response body
+	 */
+	@PostMapping(
+		value = "/query",
+		consumes = { "application/json", APPLICATION_SMILE },
+		produces = { "application/json", APPLICATION_SMILE }
+	)
+	public ProductList query(@RequestBody RcmQueryRequest request)
+	{
+		log.info("Received versioned query process request.");
 
+		return RcmRestController.respond(this.queryResults(request));
+	}
+
+	/**
+	 * Same as query, with the "ids" projection: responds the unique
+	 * identifier and the utility of the result products only.
+	 * 
+	 * @param request Query and knowledge base version.
+	 * 
+	 * @return Result products, identified by their unique identifier.
+	 */
+	@PostMapping(
+		value = "/query",
+		params = "projection=ids",
+		consumes = { "application/json", APPLICATION_SMILE },
+		produces = { "application/json", APPLICATION_SMILE }
+	)
+	public ScoredProductList queryIds(@RequestBody RcmQueryRequest request)
+	{
+		log.info("Received versioned query process request (ids projection).");
+
+		return RcmRestController.project(RcmRestController.respond(this.queryResults(request)));
+	}
+
+	/**
+	 * Processes a query against the resident knowledge base, or gets its
+	 * results from the result cache.
+	 * 
+	 * @param request Query and knowledge base version.
+	 * 
+	 * @return Result products.
+	 */
+	private List<Product> queryResults(RcmQueryRequest request)
+	{
 		/*
 		 * Pass the request.
 		 */
 
-		return RcmRestController.passRequest(
-			request,
-			minimumUtilityArg,
-			firstXElementsArg
+		KnowledgeBase knowledgeBase = knowledgeBaseService.getKnowledgeBase(request.getVersion());
+
+		log.info("Received query:");
+		log.info(request.getQuery().toString());
+
+		log.info("Using resident knowledge base version " + knowledgeBase.getVersion() + ".");
+
+		CompiledQuery compiledQuery = new CompiledQuery(request.getQuery());
+		List<Product> results = resultCacheService.get(knowledgeBase.getVersion(), compiledQuery);
+
+		if (results != null) {
+			log.info("Query results found in the result cache.");
+		} else {
+			results = mainAlgorithm.processQuery(knowledgeBase, compiledQuery);
+			resultCacheService.put(knowledgeBase.getVersion(), compiledQuery, results);
+		}
+
+		return results;
+	}
+
+	/**
+	 * Receives a POST request with a full knowledge base and makes it the
+	 * resident one.
+	 * 
+	 * @param products Knowledge base products.
+	 * 
+	 * @return New resident knowledge base version.
+	 */
+	@PostMapping(
+		value = "/knowledge-base",
+		consumes = { "application/json", APPLICATION_SMILE },
+		produces = { "application/json", APPLICATION_SMILE }
+	)
+	public KnowledgeBaseVersion loadKnowledgeBase(@RequestBody ProductList products)
+	{
+		log.info("Received knowledge base load request.");
+
+		KnowledgeBase knowledgeBase = knowledgeBaseService.load(products.getProducts());
+
+		return new KnowledgeBaseVersion(knowledgeBase.getVersion(), knowledgeBase.size());
+	}
+
+	/**
+	 * Receives a PATCH request with a delta (added, updated and removed 
+	 * products) and applies it to the resident knowledge base.
+	 * 
+	 * Responds 409 Conflict if the delta base version is not the resident
+	 * one.
+	 * 
+	 * @param delta Knowledge base delta.
+	 * 
+	 * @return New resident knowledge base version.
+	 */
+	@PatchMapping(
+		value = "/knowledge-base",
+		consumes = { "application/json", APPLICATION_SMILE },
+		produces = { "application/json", APPLICATION_SMILE }
+	)
+	public KnowledgeBaseVersion updateKnowledgeBase(@RequestBody KnowledgeBaseDelta delta)
+	{
+		log.info("Received knowledge base delta request.");
+
+		KnowledgeBase knowledgeBase = knowledgeBaseService.update(
+			delta.getBaseVersion(),
+			delta.getProducts(),
+			delta.getRemoved()
+		);
+
+		return new KnowledgeBaseVersion(knowledgeBase.getVersion(), knowledgeBase.size());
+	}
+
+	/**
+	 * Returns the resident knowledge base version.
+	 * 
+	 * @return Resident knowledge base version.
+	 */
+	@GetMapping(
+		value = "/knowledge-base",
+		produces = "application/json"
+	)
+	public KnowledgeBaseVersion getKnowledgeBase()
+	{
+		KnowledgeBase knowledgeBase = knowledgeBaseService.getKnowledgeBase();
+
+		if (knowledgeBase == null) {
+			return new KnowledgeBaseVersion(0, 0);
+		}
+
+		return new KnowledgeBaseVersion(knowledgeBase.getVersion(), knowledgeBase.size());
+	}
+
+	/**
+	 * Returns the result cache statistics.
+	 * 
+	 * @return Result cache statistics.
+	 */
+	@GetMapping(
+		value = "/result-cache",
+		produces = "application/json"
+	)
+	public ResultCacheStatistics getResultCacheStatistics()
+	{
+		return new ResultCacheStatistics(
+			resultCacheService.getSize(),
+			resultCacheService.getMaxSize(),
+			resultCacheService.getHits(),
+			resultCacheService.getMisses(),
+			resultCacheService.getEvictions(),
+			resultCacheService.getExpirations(),
+			resultCacheService.getInvalidations()
 		);
 	}
 
@@ -90,6 +309,22 @@ public class RcmRestController
 	 * @return Response wrapper with the result values.
 	 */
 	public static ProductList passRequest(RcmRequest request, int minimumUtilityArg, int firstXElementsArg)
+	{
+		return RcmRestController.passRequest(request, new MainAlgorithm(minimumUtilityArg, firstXElementsArg, null));
+	}
+
+	/**
+	 * Processes the query with an initialized (possibly shared) algorithm.
+	 * 
+	 * The request products are used as the knowledge base without copying
+	 * them, as they belong to this request only.
+	 * 
+	 * @param request
+	 * @param rec Initialized algorithm.
+	 * 
+	 * @return Response wrapper with the result values.
+	 */
+	public static ProductList passRequest(RcmRequest request, MainAlgorithm rec)
 	{
 		log.info("Received query:");
 		log.info(request.getQuery().toString());
@@ -100,15 +335,32 @@ public class RcmRestController
 			log.info(request.getProducts().get(i).toString());
 		}
 
-		/*
-		 * Instantiate the algorithm.
-		 */
-
-		MainAlgorithm rec = new MainAlgorithm(request.getProducts(), minimumUtilityArg, firstXElementsArg);
+		return RcmRestController.passQuery(rec, KnowledgeBase.wrap(request.getProducts()), request.getQuery());
+	}
 
-		List<Product> results =
-			(LinkedList<Product>) rec.processQuery(request.getQuery());
+	/**
+	 * Processes the query with an initialized algorithm.
+	 * 
+	 * @param rec Initialized algorithm.
+	 * @param knowledgeBase Knowledge base.
+	 * @param query Query to process.
+	 * 
+	 * @return Response wrapper with the result values.
+	 */
+	private static ProductList passQuery(MainAlgorithm rec, KnowledgeBase knowledgeBase, Query query)
+	{
+		return RcmRestController.respond(rec.processQuery(knowledgeBase, query));
+	}
 
+	/**
+	 * Wraps the results of a query.
+	 * 
+	 * @param results Results.
+	 * 
+	 * @return Response wrapper with the result values.
+	 */
+	private static ProductList respond(List<Product> results)
+	{
 		log.info("Algorithm result products:\n");
 
 		for (int i = 0; i < results.size(); i++) {
@@ -123,4 +375,26 @@ public class RcmRestController
 	
 		return response;
 	}
+
+	/**
+	 * Applies the "ids" projection to the results of a query. Products are
+	 * identified by their unique identifier, or by their provider unique URL
+	 * if they have none.
+	 * 
+	 * @param response Response wrapper with the result values.
+	 * 
+	 * @return Result products, identified by their unique identifier.
+	 */
+	private static ScoredProductList project(ProductList response)
+	{
+		List<ScoredProduct> products = new ArrayList<>(response.getProducts().size());
+
+		for (Product product : response.getProducts()) {
+			String url = product.getProductId() == null ? product.getProviderUniqueUrl() : null;
+
+			products.add(new ScoredProduct(product.getProductId(), url, product.getUtility()));
+		}
+
+		return new ScoredProductList(products);
+	}
 }
\ No newline at end of file
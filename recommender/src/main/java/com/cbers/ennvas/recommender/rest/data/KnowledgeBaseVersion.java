@@ -0,0 +1,36 @@
+package com.cbers.ennvas.recommender.rest.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describes the resident knowledge base.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class KnowledgeBaseVersion
+{
+
+	/**
+	 * Version. 0 if no knowledge base has been loaded.
+	 */
+	private long version;
+
+	/**
+	 * Number of products.
+	 */
+	private int size;
+}
\ No newline at end of file
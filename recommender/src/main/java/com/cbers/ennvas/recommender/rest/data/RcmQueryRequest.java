@@ -0,0 +1,38 @@
+package com.cbers.ennvas.recommender.rest.data;
+
+import com.cbers.ennvas.recommender.domain.resource.Query;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wraps a request with a Query and the version of the resident knowledge
+ * base it has to be processed against.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RcmQueryRequest
+{
+
+	private Query query;
+
+	private long version;
+
+	public String toString()
+	{
+		return "[query: " + query.toString() + ", " + "version: " + version + "]";
+	}
+}
\ No newline at end of file
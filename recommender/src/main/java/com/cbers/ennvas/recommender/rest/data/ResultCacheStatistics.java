@@ -0,0 +1,61 @@
+package com.cbers.ennvas.recommender.rest.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Describes the query result cache and its usage.
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResultCacheStatistics
+{
+
+	/**
+	 * Number of cached results.
+	 */
+	private int size;
+
+	/**
+	 * Maximum number of cached results. 0 if the cache is disabled.
+	 */
+	private int maxSize;
+
+	/**
+	 * Number of queries whose results were cached.
+	 */
+	private long hits;
+
+	/**
+	 * Number of queries whose results were not cached.
+	 */
+	private long misses;
+
+	/**
+	 * Number of results removed to keep the maximum size.
+	 */
+	private long evictions;
+
+	/**
+	 * Number of results removed because of their age.
+	 */
+	private long expirations;
+
+	/**
+	 * Number of results removed because the knowledge base changed.
+	 */
+	private long invalidations;
+}
\ No newline at end of file
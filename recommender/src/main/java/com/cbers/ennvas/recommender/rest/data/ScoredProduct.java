@@ -0,0 +1,47 @@
+package com.cbers.ennvas.recommender.rest.data;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Identifies a query result product by its unique identifier, or by its
+ * provider unique URL if it has none, with its utility, without the rest of
+ * the product data (see the "ids" projection of RcmRestController).
+ * 
+ * Uses Jackson annotations.
+ * @see https://github.com/FasterXML/jackson-docs
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(Include.NON_NULL)
+public class ScoredProduct
+{
+
+	/**
+	 * Unique identifier.
+	 */
+	private Integer productId;
+
+	/**
+	 * Provider unique URL. Null if the product has a unique identifier.
+	 */
+	private String providerUniqueUrl;
+
+	/**
+	 * Utility.
+	 */
+	private double utility;
+}
\ No newline at end of file
@@ -0,0 +1,214 @@
+package com.cbers.ennvas.recommender.rest.filter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Decompresses gzip request bodies ("Content-Encoding: gzip"), such as the
+ * knowledge bases sent by the orchestrator. Other requests are passed as
+ * they are.
+ * 
+ * The decompressed size is limited (rcm.request.max-decompressed-size), so
+ * a small compressed body cannot expand without bound; larger bodies are
+ * responded as 413 Payload Too Large (see RequestTooLargeException).
+ * 
+ * Response compression is done by the server (see application.properties).
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter
+{
+
+	private static final String GZIP = "gzip";
+
+	@Value("${rcm.request.max-decompressed-size:268435456}")
+	private long maxDecompressedSize;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+		throws ServletException, IOException
+	{
+		String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+
+		if (contentEncoding != null && contentEncoding.trim().equalsIgnoreCase(GZIP)) {
+			filterChain.doFilter(new GzipRequest(request, this.maxDecompressedSize), response);
+		} else {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+	/**
+	 * Request with its body decompressed. The decompressed length is unknown,
+	 * and the content encoding header is removed.
+	 */
+	private static class GzipRequest extends HttpServletRequestWrapper
+	{
+
+		private final long maxSize;
+
+		private ServletInputStream inputStream;
+
+		public GzipRequest(HttpServletRequest request, long maxSize)
+		{
+			super(request);
+
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException
+		{
+			if (this.inputStream == null) {
+				this.inputStream = new GzipInputStream(new GZIPInputStream(super.getInputStream()), this.maxSize);
+			}
+
+			return this.inputStream;
+		}
+
+		@Override
+		public int getContentLength()
+		{
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong()
+		{
+			return -1;
+		}
+
+		@Override
+		public String getHeader(String name)
+		{
+			if (name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING)) {
+				return null;
+			}
+
+			return super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name)
+		{
+			if (name.equalsIgnoreCase(HttpHeaders.CONTENT_ENCODING)) {
+				return Collections.emptyEnumeration();
+			}
+
+			return super.getHeaders(name);
+		}
+	}
+
+	/**
+	 * Blocking servlet input stream over the decompressed body, which fails
+	 * once more than the maximum size is read.
+	 */
+	private static class GzipInputStream extends ServletInputStream
+	{
+
+		private final InputStream inputStream;
+
+		private final long maxSize;
+
+		private long size;
+
+		private boolean finished;
+
+		public GzipInputStream(InputStream inputStream, long maxSize)
+		{
+			this.inputStream = inputStream;
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			int value = this.inputStream.read();
+
+			this.count(value == -1 ? -1 : 1);
+
+			return value;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException
+		{
+			int count = this.inputStream.read(buffer, offset, length);
+
+			this.count(count);
+
+			return count;
+		}
+
+		private void count(int count)
+		{
+			this.finished = count == -1;
+
+			if (count > 0) {
+				this.size += count;
+
+				if (this.size > this.maxSize) {
+					throw new RequestTooLargeException(this.maxSize);
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			this.inputStream.close();
+		}
+
+		@Override
+		public boolean isFinished()
+		{
+			return this.finished;
+		}
+
+		@Override
+		public boolean isReady()
+		{
+			return true;
+		}
+
+		/**
+		 * Reads are blocking, so the data is always ready: the listener is
+		 * notified at once, and then again when all the data was read.
+		 */
+		@Override
+		public void setReadListener(ReadListener readListener)
+		{
+			try {
+				readListener.onDataAvailable();
+
+				if (this.finished) {
+					readListener.onAllDataRead();
+				}
+			} catch (IOException | RuntimeException e) {
+				readListener.onError(e);
+			}
+		}
+	}
+}
\ No newline at end of file
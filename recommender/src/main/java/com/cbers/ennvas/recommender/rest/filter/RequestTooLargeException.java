@@ -0,0 +1,37 @@
+package com.cbers.ennvas.recommender.rest.filter;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a decompressed request body exceeds the maximum size.
+ * Responded as 413 Payload Too Large.
+ * 
+ * It is not an IOException, so it is not turned into a 400 Bad Request
+ * when thrown while the body is being read: the response status is also
+ * found when it is the cause of a body parse error.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class RequestTooLargeException extends RuntimeException
+{
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs the exception.
+	 * 
+	 * @param maxSize Maximum decompressed size (in bytes).
+	 */
+	public RequestTooLargeException(long maxSize)
+	{
+		super("Decompressed request body exceeds " + maxSize + " bytes.");
+	}
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.cbers.ennvas.recommender.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the knowledge base deltas.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class KnowledgeBaseTest
+{
+
+	@Test
+	public void updateKeepsPositionsAndSkipsUnkeyedProducts()
+	{
+		KnowledgeBase knowledgeBase = new KnowledgeBase(Arrays.asList(
+			KnowledgeBaseTest.product(1, "https://example.com/1"),
+			KnowledgeBaseTest.product(2, "https://example.com/2"),
+			KnowledgeBaseTest.product(3, "https://example.com/3")
+		), 1);
+
+		/*
+		 * Product 2 updated, product 3 removed, product 4 added, and a product
+		 * without URL, sent with every delta.
+		 */
+
+		Product updated = KnowledgeBaseTest.product(2, "https://example.com/2");
+		updated.setPrice(5.0);
+
+		List<Product> upserts = Arrays.asList(
+			updated,
+			KnowledgeBaseTest.product(4, "https://example.com/4"),
+			KnowledgeBaseTest.product(5, null)
+		);
+
+		KnowledgeBase next = knowledgeBase.update(upserts, Collections.singletonList("https://example.com/3"), 2);
+
+		assertEquals(2, next.getVersion());
+		assertEquals(Arrays.asList(1, 2, 4), KnowledgeBaseTest.productIds(next));
+		assertEquals(5.0, next.getProduct(1).getPrice());
+
+		next = next.update(upserts, Collections.<String>emptyList(), 3);
+
+		assertEquals(Arrays.asList(1, 2, 4), KnowledgeBaseTest.productIds(next));
+	}
+
+	/**
+	 * Creates a test product.
+	 * 
+	 * @param productId Unique identifier.
+	 * @param providerUniqueUrl Provider unique URL.
+	 * 
+	 * @return Product.
+	 */
+	private static Product product(int productId, String providerUniqueUrl)
+	{
+		Product product = new Product();
+		product.setProductId(productId);
+		product.setName("Product " + productId);
+		product.setDescription("Test product.");
+		product.setPrice(10.0);
+		product.setProviderUniqueUrl(providerUniqueUrl);
+
+		return product;
+	}
+
+	/**
+	 * Returns the unique identifiers of the knowledge base products, in
+	 * ordinal order.
+	 * 
+	 * @param knowledgeBase Knowledge base.
+	 * 
+	 * @return Unique identifiers.
+	 */
+	private static List<Integer> productIds(KnowledgeBase knowledgeBase)
+	{
+		List<Integer> productIds = new ArrayList<Integer>();
+
+		for (int i = 0; i < knowledgeBase.size(); i++) {
+			productIds.add(knowledgeBase.getProduct(i).getProductId());
+		}
+
+		return productIds;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,292 @@
+package com.cbers.ennvas.recommender.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the optimized query processing (n-gram candidate index, token
+ * matcher, top K selection and parallel scoring) gives the same results as
+ * the original algorithm: every product scored word by word with
+ * String#contains, and the knowledge base stably sorted by utility.
+ * 
+ * The demo products are used as the knowledge base.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class MainAlgorithmEquivalenceTest
+{
+
+	private static final String DEMO_PRODUCTS = "../_demo-and-test/demo-products.json";
+
+	/**
+	 * Query phrases: empty words, repeated words, at least 12 distinct words
+	 * (searched with a TokenMatcher) and words with many utility ties.
+	 */
+	private static final String[] PHRASES = {
+		"",
+		"   ",
+		" apple iphone",
+		"apple  Apple APPLE iphone",
+		"cámara cámara camara de",
+		"smartphone",
+		"a",
+		"pantalla cámara batería negro azul blanco gb ram procesador smartphone apple samsung xiaomi",
+		"pantalla negro pantalla azul blanco gb gb ram procesador smartphone apple samsung xiaomi negro",
+		" a e i o u 1 2 3 4 5 6 7 8",
+		"ab abc abcd bc bcd cd pro proc procesador ces sad dor or r",
+		"zzz qqq xxx www yyy kkk jjj vvv fff hhh ggg ttt"
+	};
+
+	private static final int[] MINIMUM_UTILITIES = { -1, 0, 1, 3 };
+
+	private static final int[] FIRST_X_ELEMENTS = { 1, 5, 10, 1000 };
+
+	private static List<Product> products;
+
+	@BeforeAll
+	public static void loadProducts() throws IOException
+	{
+		ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+		products = Arrays.asList(objectMapper.readValue(new File(DEMO_PRODUCTS), Product[].class));
+	}
+
+	@Test
+	public void processQueryMatchesBaseline()
+	{
+		for (Query query : MainAlgorithmEquivalenceTest.queries()) {
+			for (int minimumUtility : MINIMUM_UTILITIES) {
+				for (int firstXElements : FIRST_X_ELEMENTS) {
+					MainAlgorithm algorithm = new MainAlgorithm(products, minimumUtility, firstXElements);
+
+					assertEquals(
+						MainAlgorithmEquivalenceTest.baseline(products, query, minimumUtility, firstXElements),
+						algorithm.processQuery(query),
+						query + ", minimum utility " + minimumUtility + ", first x elements " + firstXElements
+					);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void parallelProcessQueryMatchesBaseline()
+	{
+		/*
+		 * Enough copies of the demo products to be scored in parallel chunks,
+		 * with distinct URLs so that the tie order can be checked.
+		 */
+
+		List<Product> copies = new ArrayList<Product>();
+
+		for (int copy = 0; copy < 100; copy++) {
+			for (Product product : products) {
+				Product p = new Product(product);
+				p.setProviderUniqueUrl(product.getProviderUniqueUrl() + "#" + copy);
+				copies.add(p);
+			}
+		}
+
+		KnowledgeBase knowledgeBase = new KnowledgeBase(copies);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			for (Query query : MainAlgorithmEquivalenceTest.queries()) {
+				for (int minimumUtility : MINIMUM_UTILITIES) {
+					MainAlgorithm algorithm = new MainAlgorithm(knowledgeBase, minimumUtility, 100, pool);
+
+					assertEquals(
+						MainAlgorithmEquivalenceTest.baseline(copies, query, minimumUtility, 100),
+						algorithm.processQuery(query),
+						query + ", minimum utility " + minimumUtility
+					);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void tokenMatcherMatchesContains()
+	{
+		for (String phrase : PHRASES) {
+			String[] tokens = new CompiledQuery(new Query(phrase, false, false, 0, 0, 0, 0)).getTokens();
+
+			if (!TokenMatcher.supports(tokens)) {
+				continue;
+			}
+
+			TokenMatcher matcher = new TokenMatcher(tokens);
+
+			for (Product product : products) {
+				ProductText text = new ProductText(product);
+
+				for (String attribute : new String[] { text.getName(), text.getType(), text.getBrand(), text.getDescription() }) {
+					long expected = 0;
+
+					for (int i = 0; i < tokens.length; i++) {
+						if (attribute.contains(tokens[i])) {
+							expected |= 1L << i;
+						}
+					}
+
+					assertEquals(expected, matcher.match(attribute), "\"" + phrase + "\" in \"" + attribute + "\"");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void candidatesContainMatchingProducts()
+	{
+		KnowledgeBase knowledgeBase = new KnowledgeBase(products);
+
+		for (String phrase : PHRASES) {
+			String[] tokens = new CompiledQuery(new Query(phrase, false, false, 0, 0, 0, 0)).getTokens();
+			BitSet candidates = knowledgeBase.getIndex().candidates(tokens);
+
+			for (int ordinal = 0; ordinal < knowledgeBase.size(); ordinal++) {
+				ProductText text = knowledgeBase.getText(ordinal);
+
+				for (String token : tokens) {
+					if (text.getName().contains(token) || text.getType().contains(token)
+						|| text.getBrand().contains(token) || text.getDescription().contains(token)) {
+						assertTrue(candidates.get(ordinal), "\"" + token + "\" in product " + ordinal);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the queries of every phrase, with and without filters.
+	 * 
+	 * @return Queries.
+	 */
+	private static List<Query> queries()
+	{
+		List<Query> queries = new ArrayList<Query>();
+
+		for (String phrase : PHRASES) {
+			queries.add(new Query(phrase, false, false, 0, 0, 0, 0));
+			queries.add(new Query(phrase, true, true, 100, 1000, 30, 4.0));
+		}
+
+		return queries;
+	}
+
+	/**
+	 * Processes a query as the original algorithm: scores every product,
+	 * stably sorts them by utility, and takes the first x elements with the
+	 * minimum utility.
+	 * 
+	 * @param products Knowledge base.
+	 * @param query Query to process.
+	 * @param minimumUtility Minimum utility.
+	 * @param firstXElements Number of result elements.
+	 * 
+	 * @return Result list.
+	 */
+	private static List<Product> baseline(List<Product> products, Query query, int minimumUtility, int firstXElements)
+	{
+		List<Product> scored = new ArrayList<Product>();
+
+		for (Product product : products) {
+			Product rp = new Product(product);
+			rp.setUtility(MainAlgorithmEquivalenceTest.baselineUtility(product, query));
+			scored.add(rp);
+		}
+
+		scored.sort(Comparator.comparingDouble(Product::getUtility).reversed());
+
+		List<Product> returnValues = new ArrayList<Product>();
+
+		for (int i = 0; i < firstXElements && i < scored.size(); i++) {
+			if (scored.get(i).getUtility() >= minimumUtility) {
+				returnValues.add(scored.get(i));
+			}
+		}
+
+		return returnValues;
+	}
+
+	/**
+	 * Original utility function: every word of the phrase (repeated ones
+	 * included) adds the number of attributes that contain it.
+	 * 
+	 * @param product Product to evaluate.
+	 * @param query Query base.
+	 * 
+	 * @return Utility value.
+	 */
+	private static double baselineUtility(Product product, Query query)
+	{
+		if (query.getPriceMin() > 0.0 && query.getPriceMin() > product.getPrice()) {
+			return -1;
+		}
+
+		if (query.getPriceMax() > 0.0 && query.getPriceMax() < product.getPrice()) {
+			return -1;
+		}
+
+		if (query.isFreeShipping() && product.getShippingPrice() != 0) {
+			return -1;
+		}
+
+		if (query.getMaxShippingTime() > 0 && query.getMaxShippingTime() < product.getShippingTime()) {
+			return -1;
+		}
+
+		if (query.isAvailable() && product.getStock() == 0) {
+			return -1;
+		}
+
+		if (query.getMinRating() > 0 && query.getMinRating() > product.getRating()) {
+			return -1;
+		}
+
+		String phrase = query.getPhrase().replaceAll("[^\\sA-Za-z0-9]", "");
+		phrase = phrase.replaceAll("[\\s]+", ";");
+
+		double utility = 0;
+
+		for (String p : phrase.split(";")) {
+			String lcp = UtilityFunction.strToAscii(p).toLowerCase();
+
+			for (String attribute : new String[] { product.getName(), product.getType(), product.getBrand(), product.getDescription() }) {
+				assertNotNull(attribute);
+
+				if (UtilityFunction.strToAscii(attribute).toLowerCase().contains(lcp)) {
+					utility++;
+				}
+			}
+		}
+
+		return utility;
+	}
+}
\ No newline at end of file
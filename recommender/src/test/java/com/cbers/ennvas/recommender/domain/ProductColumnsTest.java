@@ -0,0 +1,78 @@
+package com.cbers.ennvas.recommender.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.domain.resource.Query;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the query filters of the product columns and of the utility
+ * function give the products expected by the filter test, which is shared
+ * with the agent manager data base filter tests.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+public class ProductColumnsTest
+{
+
+	private static final String FILTER_TEST = "../_demo-and-test/filter-test.json";
+
+	private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	@Test
+	public void filtersMatchAgentManagerFilters() throws IOException
+	{
+		JsonNode filterTest = objectMapper.readTree(new File(FILTER_TEST));
+
+		List<Product> products = new ArrayList<Product>();
+
+		for (JsonNode product : filterTest.get("products")) {
+			products.add(objectMapper.treeToValue(product, Product.class));
+		}
+
+		ProductColumns columns = new ProductColumns(products);
+
+		for (JsonNode test : filterTest.get("filters")) {
+			Query query = objectMapper.treeToValue(test, Query.class);
+			query.setPhrase("zzz");
+
+			List<String> expected = new ArrayList<String>();
+
+			test.get("expected").forEach(url -> expected.add(url.asText()));
+
+			BitSet eligible = columns.filter(query, new BitSet());
+			List<String> filtered = new ArrayList<String>();
+			List<String> scored = new ArrayList<String>();
+
+			for (int i = 0; i < products.size(); i++) {
+				if (eligible.get(i)) {
+					filtered.add(products.get(i).getProviderUniqueUrl());
+				}
+
+				if (UtilityFunction.calculate(products.get(i), query) != -1) {
+					scored.add(products.get(i).getProviderUniqueUrl());
+				}
+			}
+
+			assertEquals(expected, filtered, test.get("description").asText() + " " + query);
+			assertEquals(expected, scored, test.get("description").asText() + " " + query);
+		}
+	}
+}
\ No newline at end of file
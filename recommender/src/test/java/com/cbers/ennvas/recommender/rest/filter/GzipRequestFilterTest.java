@@ -0,0 +1,209 @@
+package com.cbers.ennvas.recommender.rest.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import com.cbers.ennvas.recommender.application.service.KnowledgeBaseService;
+import com.cbers.ennvas.recommender.application.service.ResultCacheService;
+import com.cbers.ennvas.recommender.domain.KnowledgeBase;
+import com.cbers.ennvas.recommender.domain.MainAlgorithm;
+import com.cbers.ennvas.recommender.domain.resource.Product;
+import com.cbers.ennvas.recommender.rest.controller.RcmRestController;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Checks the gzip request bodies of the REST API, sent to the knowledge base
+ * load request with a mocked knowledge base service.
+ * 
+ * The maximum decompressed size is 1024 bytes.
+ * 
+ * @author Juan Francisco Carrión Molina
+ * @author Raquel Pérez González de Ossuna
+ * @author Olga Posada Iglesias
+ * @author Nicolás Pardina Popp
+ * 
+ * @version 1.0.0
+ */
+
+@ExtendWith(MockitoExtension.class)
+public class GzipRequestFilterTest
+{
+
+	private static final String KNOWLEDGE_BASE_URL = "/ennvas/rcm/rest/knowledge-base";
+
+	@Mock
+	private KnowledgeBaseService knowledgeBaseService;
+
+	@Mock
+	private ResultCacheService resultCacheService;
+
+	@Mock
+	private MainAlgorithm mainAlgorithm;
+
+	@InjectMocks
+	private RcmRestController rcmRestController;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setUp()
+	{
+		GzipRequestFilter gzipRequestFilter = new GzipRequestFilter();
+		ReflectionTestUtils.setField(gzipRequestFilter, "maxDecompressedSize", 1024L);
+
+		mockMvc = MockMvcBuilders.standaloneSetup(rcmRestController).addFilters(gzipRequestFilter).build();
+	}
+
+	@Test
+	public void gzipBodiesAreDecompressed() throws Exception
+	{
+		this.stubLoad();
+
+		mockMvc.perform(
+			post(KNOWLEDGE_BASE_URL)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.content(GzipRequestFilterTest.gzip(GzipRequestFilterTest.products("Test product.")))
+		)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.version").value(3))
+			.andExpect(jsonPath("$.size").value(1));
+
+		this.verifyLoaded("Test product.");
+	}
+
+	@Test
+	public void plainBodiesArePassed() throws Exception
+	{
+		this.stubLoad();
+
+		mockMvc.perform(
+			post(KNOWLEDGE_BASE_URL)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(GzipRequestFilterTest.products("Test product."))
+		)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.version").value(3))
+			.andExpect(jsonPath("$.size").value(1));
+
+		this.verifyLoaded("Test product.");
+	}
+
+	@Test
+	public void largeGzipBodiesAreRejected() throws Exception
+	{
+		/*
+		 * Compressed to a few bytes, but decompressed over the maximum size.
+		 */
+
+		StringBuilder description = new StringBuilder();
+
+		for (int i = 0; i < 2048; i++) {
+			description.append('a');
+		}
+
+		byte[] body = GzipRequestFilterTest.gzip(GzipRequestFilterTest.products(description.toString()));
+
+		mockMvc.perform(
+			post(KNOWLEDGE_BASE_URL)
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.CONTENT_ENCODING, "GZIP")
+				.content(body)
+		)
+			.andExpect(status().isPayloadTooLarge());
+
+		verify(knowledgeBaseService, never()).load(any());
+
+		/*
+		 * The same body is not limited when it is not compressed.
+		 */
+
+		this.stubLoad();
+
+		mockMvc.perform(
+			post(KNOWLEDGE_BASE_URL)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(GzipRequestFilterTest.products(description.toString()))
+		)
+			.andExpect(status().isOk());
+	}
+
+	/**
+	 * Stubs the knowledge base load: the loaded products are version 3.
+	 */
+	private void stubLoad()
+	{
+		when(knowledgeBaseService.load(any())).thenAnswer(invocation -> new KnowledgeBase(invocation.getArgument(0), 3));
+	}
+
+	/**
+	 * Checks that the knowledge base service loaded the test product.
+	 * 
+	 * @param description Product description.
+	 */
+	@SuppressWarnings("unchecked")
+	private void verifyLoaded(String description)
+	{
+		ArgumentCaptor<List<Product>> products = ArgumentCaptor.forClass(List.class);
+
+		verify(knowledgeBaseService).load(products.capture());
+		assertEquals(1, products.getValue().size());
+		assertEquals("https://example.com/1", products.getValue().get(0).getProviderUniqueUrl());
+		assertEquals(description, products.getValue().get(0).getDescription());
+	}
+
+	/**
+	 * Returns a JSON knowledge base with one test product.
+	 * 
+	 * @param description Product description.
+	 * 
+	 * @return JSON knowledge base.
+	 */
+	private static String products(String description)
+	{
+		return "{\"products\":[{\"productId\":1,\"name\":\"Product 1\",\"description\":\"" + description
+			+ "\",\"providerUniqueUrl\":\"https://example.com/1\"}]}";
+	}
+
+	/**
+	 * Compresses a request body with gzip.
+	 * 
+	 * @param body Request body.
+	 * 
+	 * @return Compressed request body.
+	 */
+	private static byte[] gzip(String body) throws IOException
+	{
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+
+		return compressed.toByteArray();
+	}
+}
\ No newline at end of file